@@ -2,10 +2,10 @@ package com.google.sps.data;
 
 public class Cases {
   private String state;
-  private Integer cases;
-  private Integer deaths;
+  private int cases;
+  private int deaths;
 
-  public Cases(String state, Integer cases, Integer deaths) {
+  public Cases(String state, int cases, int deaths) {
     this.state = state;
     this.cases = cases;
     this.deaths = deaths;
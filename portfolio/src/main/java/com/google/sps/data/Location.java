@@ -1,13 +0,0 @@
-
-package com.google.sps.data;
-
-/** Represents a location at a specific lat lng point. */
-public class Location {
-  private double lat;
-  private double lng;
-
-  public Location(double lat, double lng) {
-    this.lat = lat;
-    this.lng = lng;
-  }
-}
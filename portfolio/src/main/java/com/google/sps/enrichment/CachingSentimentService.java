@@ -0,0 +1,69 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.enrichment;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/** Answers repeated texts from an {@code EnrichmentCache} and sends only the rest on. */
+public class CachingSentimentService implements SentimentService {
+  private static final String KIND = "sentiment";
+
+  private final SentimentService delegate;
+  private final EnrichmentCache cache;
+
+  public CachingSentimentService(SentimentService delegate, EnrichmentCache cache) {
+    this.delegate = delegate;
+    this.cache = cache;
+  }
+
+  @Override
+  public List<Float> analyze(List<String> texts) throws IOException {
+    List<String> keys = new ArrayList<>(texts.size());
+    for (String text : texts) {
+      keys.add(EnrichmentCache.key(KIND, text, ""));
+    }
+    Map<String, Object> cached = cache.getAll(keys);
+
+    // Score each text that was not cached, once, however often it appears in the batch.
+    List<String> missingTexts = new ArrayList<>();
+    List<String> missingKeys = new ArrayList<>();
+    for (int k = 0; k < texts.size(); k++) {
+      if (!cached.containsKey(keys.get(k)) && !missingKeys.contains(keys.get(k))) {
+        missingTexts.add(texts.get(k));
+        missingKeys.add(keys.get(k));
+      }
+    }
+    if (!missingTexts.isEmpty()) {
+      List<Float> scores = delegate.analyze(missingTexts);
+      Map<String, Object> fresh = new HashMap<>();
+      for (int k = 0; k < missingKeys.size(); k++) {
+        // Datastore stores floating point numbers as doubles, so the cache does too.
+        fresh.put(missingKeys.get(k), scores.get(k).doubleValue());
+      }
+      cache.putAll(fresh);
+      cached.putAll(fresh);
+    }
+
+    List<Float> scores = new ArrayList<>(texts.size());
+    for (String key : keys) {
+      scores.add(((Number) cached.get(key)).floatValue());
+    }
+    return scores;
+  }
+}
@@ -0,0 +1,68 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.enrichment;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/** Answers repeated texts from an {@code EnrichmentCache} and sends only the rest on. */
+public class CachingTranslationService implements TranslationService {
+  private static final String KIND = "translation";
+
+  private final TranslationService delegate;
+  private final EnrichmentCache cache;
+
+  public CachingTranslationService(TranslationService delegate, EnrichmentCache cache) {
+    this.delegate = delegate;
+    this.cache = cache;
+  }
+
+  @Override
+  public List<String> translate(List<String> texts, String targetLanguage) throws IOException {
+    List<String> keys = new ArrayList<>(texts.size());
+    for (String text : texts) {
+      keys.add(EnrichmentCache.key(KIND, text, targetLanguage));
+    }
+    Map<String, Object> cached = cache.getAll(keys);
+
+    // Translate each text that was not cached, once, however often it appears in the batch.
+    List<String> missingTexts = new ArrayList<>();
+    List<String> missingKeys = new ArrayList<>();
+    for (int k = 0; k < texts.size(); k++) {
+      if (!cached.containsKey(keys.get(k)) && !missingKeys.contains(keys.get(k))) {
+        missingTexts.add(texts.get(k));
+        missingKeys.add(keys.get(k));
+      }
+    }
+    if (!missingTexts.isEmpty()) {
+      List<String> translations = delegate.translate(missingTexts, targetLanguage);
+      Map<String, Object> fresh = new HashMap<>();
+      for (int k = 0; k < missingKeys.size(); k++) {
+        fresh.put(missingKeys.get(k), translations.get(k));
+      }
+      cache.putAll(fresh);
+      cached.putAll(fresh);
+    }
+
+    List<String> translations = new ArrayList<>(texts.size());
+    for (String key : keys) {
+      translations.add((String) cached.get(key));
+    }
+    return translations;
+  }
+}
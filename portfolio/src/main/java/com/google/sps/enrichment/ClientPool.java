@@ -0,0 +1,142 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.enrichment;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ClientPool keeps up to a fixed number of long-lived API clients and lends them out one call at
+ * a time, so that channel setup and credential loading happen once rather than on every request.
+ * Clients are created the first time they are needed, checked before each use, and replaced if
+ * they are no longer healthy. Once the pool is closed, callers waiting for a client give up with an
+ * {@link IllegalStateException}.
+ */
+public class ClientPool<T> implements AutoCloseable {
+
+  /** Creates, checks and closes the clients of a pool. */
+  public interface Factory<T> {
+    T create() throws IOException;
+
+    /** Returns whether {@code client} can still be used. */
+    boolean isHealthy(T client);
+
+    void close(T client);
+  }
+
+  /** One call made with a borrowed client. */
+  public interface Call<T, R> {
+    R call(T client) throws IOException;
+  }
+
+  // How long a caller waits for a returned client before checking again whether the pool was
+  // closed or has room for a new client.
+  private static final long RECHECK_MILLIS = 100;
+
+  private final Factory<T> factory;
+  private final int size;
+  private final BlockingQueue<T> idle;
+  private int created;
+  private boolean closed;
+
+  /** Creates a pool that holds at most {@code size} clients. */
+  public ClientPool(Factory<T> factory, int size) {
+    if (size <= 0) {
+      throw new IllegalArgumentException("size must be positive");
+    }
+    this.factory = factory;
+    this.size = size;
+    this.idle = new ArrayBlockingQueue<>(size);
+  }
+
+  /**
+   * Runs {@code call} with a client from the pool, waiting for one to be returned if all of them
+   * are in use.
+   *
+   * @throws IllegalStateException if the pool is closed, including while waiting for a client.
+   */
+  public <R> R withClient(Call<T, R> call) throws IOException {
+    T client = borrow();
+    try {
+      return call.call(client);
+    } finally {
+      giveBack(client);
+    }
+  }
+
+  /** Closes every idle client. Clients that are lent out are closed when they come back. */
+  @Override
+  public synchronized void close() {
+    closed = true;
+    List<T> clients = new ArrayList<>();
+    idle.drainTo(clients);
+    for (T client : clients) {
+      factory.close(client);
+    }
+  }
+
+  private T borrow() throws IOException {
+    while (true) {
+      T client = idle.poll();
+      if (client == null) {
+        synchronized (this) {
+          if (closed) {
+            throw new IllegalStateException("The pool has been closed");
+          }
+          if (created < size) {
+            created++;
+            try {
+              return factory.create();
+            } catch (IOException | RuntimeException e) {
+              created--;
+              throw e;
+            }
+          }
+        }
+        try {
+          client = idle.poll(RECHECK_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IOException("Interrupted while waiting for a client", e);
+        }
+        if (client == null) {
+          continue;
+        }
+      }
+
+      if (factory.isHealthy(client)) {
+        return client;
+      }
+      factory.close(client);
+      synchronized (this) {
+        created--;
+      }
+    }
+  }
+
+  private synchronized void giveBack(T client) {
+    // Checked under the lock so that a client cannot be put back after close() drained the pool.
+    if (closed) {
+      created--;
+      factory.close(client);
+      return;
+    }
+    idle.offer(client);
+  }
+}
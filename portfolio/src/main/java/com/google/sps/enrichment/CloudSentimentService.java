@@ -0,0 +1,64 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.enrichment;
+
+import com.google.cloud.language.v1.Document;
+import com.google.cloud.language.v1.LanguageServiceClient;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Scores sentiment with the Cloud Natural Language API, using clients from a pool. */
+public class CloudSentimentService implements SentimentService {
+  private final ClientPool<LanguageServiceClient> clients;
+
+  public CloudSentimentService(ClientPool<LanguageServiceClient> clients) {
+    this.clients = clients;
+  }
+
+  /** Returns a pool of at most {@code size} Natural Language clients. */
+  public static ClientPool<LanguageServiceClient> newClientPool(int size) {
+    return new ClientPool<>(new ClientPool.Factory<LanguageServiceClient>() {
+      @Override
+      public LanguageServiceClient create() throws IOException {
+        return LanguageServiceClient.create();
+      }
+
+      @Override
+      public boolean isHealthy(LanguageServiceClient client) {
+        return !client.isShutdown() && !client.isTerminated();
+      }
+
+      @Override
+      public void close(LanguageServiceClient client) {
+        client.close();
+      }
+    }, size);
+  }
+
+  @Override
+  public List<Float> analyze(List<String> texts) throws IOException {
+    // The API scores one document per call, so a batch at least shares one client.
+    return clients.withClient(languageService -> {
+      List<Float> scores = new ArrayList<>(texts.size());
+      for (String text : texts) {
+        Document doc =
+            Document.newBuilder().setContent(text).setType(Document.Type.PLAIN_TEXT).build();
+        scores.add(languageService.analyzeSentiment(doc).getDocumentSentiment().getScore());
+      }
+      return scores;
+    });
+  }
+}
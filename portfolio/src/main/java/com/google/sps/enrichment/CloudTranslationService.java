@@ -0,0 +1,68 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.enrichment;
+
+import com.google.cloud.translate.Translate;
+import com.google.cloud.translate.TranslateOptions;
+import com.google.cloud.translate.Translation;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Translates with the Cloud Translation API, one call per batch, using clients from a pool.
+ */
+public class CloudTranslationService implements TranslationService {
+  private final ClientPool<Translate> clients;
+
+  public CloudTranslationService(ClientPool<Translate> clients) {
+    this.clients = clients;
+  }
+
+  /** Returns a pool of at most {@code size} Translation clients. */
+  public static ClientPool<Translate> newClientPool(int size) {
+    return new ClientPool<>(new ClientPool.Factory<Translate>() {
+      @Override
+      public Translate create() {
+        return TranslateOptions.getDefaultInstance().getService();
+      }
+
+      @Override
+      public boolean isHealthy(Translate client) {
+        // The client keeps no connection of its own, so there is nothing that can go stale.
+        return true;
+      }
+
+      @Override
+      public void close(Translate client) {
+        // Nothing to release.
+      }
+    }, size);
+  }
+
+  @Override
+  public List<String> translate(List<String> texts, String targetLanguage) throws IOException {
+    return clients.withClient(translate -> {
+      List<Translation> translations =
+          translate.translate(texts, Translate.TranslateOption.targetLanguage(targetLanguage));
+
+      List<String> translatedTexts = new ArrayList<>(translations.size());
+      for (Translation translation : translations) {
+        translatedTexts.add(translation.getTranslatedText());
+      }
+      return translatedTexts;
+    });
+  }
+}
@@ -0,0 +1,257 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps.enrichment;
+
+import com.google.appengine.api.datastore.DatastoreService;
+import com.google.appengine.api.datastore.Entity;
+import com.google.appengine.api.datastore.FetchOptions;
+import com.google.appengine.api.datastore.Key;
+import com.google.appengine.api.datastore.KeyFactory;
+import com.google.appengine.api.datastore.Query;
+import com.google.appengine.api.datastore.Query.FilterOperator;
+import com.google.appengine.api.datastore.Query.FilterPredicate;
+import com.google.appengine.api.datastore.Transaction;
+import com.google.appengine.api.datastore.TransactionOptions;
+import com.google.appengine.api.taskqueue.Queue;
+import com.google.appengine.api.taskqueue.TaskOptions;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * CommentEnricher scores and translates stored comments outside of the request that saved them.
+ * Comments are saved with a pending status and handed to a Task Queue push queue; each task
+ * enriches a batch of comments with one sentiment call and one translation call per target
+ * language, and writes the results back to Datastore.
+ *
+ * <p>The results are kept in their own properties, so the {@code commentInstance} property that
+ * comments are sorted by never changes. A batch whose API calls fail stays pending and its task is
+ * retried by the queue; after {@link #MAX_ATTEMPTS} failures its comments are marked failed.
+ * Comments whose task was never added, or was lost, are found again by {@link #submitPending},
+ * which a cron job calls.
+ */
+public class CommentEnricher {
+  /** The property that tracks whether a comment has been enriched yet. */
+  public static final String STATUS_PROPERTY = "enrichmentStatus";
+  public static final String PENDING = "pending";
+  public static final String DONE = "done";
+  public static final String FAILED = "failed";
+
+  /** The properties that hold the text as written and the language to translate it into. */
+  public static final String TEXT_PROPERTY = "text";
+  public static final String LANGUAGE_PROPERTY = "language";
+
+  /** The properties that hold the sentiment score and the translated text once enriched. */
+  public static final String SENTIMENT_PROPERTY = "sentiment";
+  public static final String TRANSLATION_PROPERTY = "translation";
+
+  /** The number of failed enrichment attempts, and when the comment was last queued. */
+  public static final String ATTEMPTS_PROPERTY = "enrichmentAttempts";
+  public static final String QUEUED_PROPERTY = "enrichmentQueued";
+
+  /** The number of failed attempts after which a comment is marked failed. */
+  public static final int MAX_ATTEMPTS = 5;
+
+  /** The path that enrichment tasks are sent to, and the parameter that names each comment. */
+  public static final String TASK_PATH = "/tasks/enrich";
+  public static final String KEY_PARAMETER = "key";
+
+  // The most entity groups one cross-group transaction may touch. Every comment is its own group.
+  private static final int MAX_TRANSACTION_GROUPS = 25;
+  // A pending comment queued more recently than this is assumed to still have a task.
+  private static final long REQUEUE_AFTER_MILLIS = TimeUnit.MINUTES.toMillis(10);
+  // The most pending comments one rescan looks at.
+  private static final int MAX_RESCAN = 500;
+
+  private static final Logger logger = Logger.getLogger(CommentEnricher.class.getName());
+
+  private final DatastoreService datastore;
+  private final SentimentService sentimentService;
+  private final TranslationService translationService;
+  private final Queue queue;
+  private final int batchSize;
+
+  /**
+   * Creates an enricher.
+   *
+   * @param queue The push queue that enrichment tasks are added to.
+   * @param batchSize The most comments sent to the services in one call, at most 25 so that a
+   *     batch can be saved in one transaction.
+   */
+  public CommentEnricher(DatastoreService datastore, SentimentService sentimentService,
+      TranslationService translationService, Queue queue, int batchSize) {
+    if (batchSize <= 0 || batchSize > MAX_TRANSACTION_GROUPS) {
+      throw new IllegalArgumentException("batchSize must be between 1 and 25");
+    }
+    this.datastore = datastore;
+    this.sentimentService = sentimentService;
+    this.translationService = translationService;
+    this.queue = queue;
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * Adds a task that enriches the comments stored under {@code keys}. The comments should have
+   * been saved with {@link #QUEUED_PROPERTY} set, so that a rescan leaves them alone for a while.
+   * Throws the queue's exception if the task cannot be added; the comments then stay pending
+   * until a rescan finds them.
+   */
+  public void submit(List<Key> keys) {
+    TaskOptions task = TaskOptions.Builder.withUrl(TASK_PATH);
+    for (Key key : keys) {
+      task.param(KEY_PARAMETER, KeyFactory.keyToString(key));
+    }
+    queue.add(task);
+  }
+
+  /**
+   * Adds tasks, in batches, for the pending comments that have not been queued recently. Returns
+   * the number of comments that were queued.
+   */
+  public int submitPending() {
+    long now = System.currentTimeMillis();
+    Query pending = new Query("Comments").setFilter(
+        new FilterPredicate(STATUS_PROPERTY, FilterOperator.EQUAL, PENDING));
+    List<Entity> due = new ArrayList<>();
+    for (Entity comment :
+        datastore.prepare(pending).asIterable(FetchOptions.Builder.withLimit(MAX_RESCAN))) {
+      Long queued = (Long) comment.getProperty(QUEUED_PROPERTY);
+      if (queued == null || now - queued > REQUEUE_AFTER_MILLIS) {
+        due.add(comment);
+      }
+    }
+
+    for (int start = 0; start < due.size(); start += batchSize) {
+      List<Entity> batch = due.subList(start, Math.min(start + batchSize, due.size()));
+      List<Key> keys = new ArrayList<>(batch.size());
+      for (Entity comment : batch) {
+        comment.setProperty(QUEUED_PROPERTY, now);
+        keys.add(comment.getKey());
+      }
+      datastore.put(batch);
+      submit(keys);
+    }
+    return due.size();
+  }
+
+  /**
+   * Enriches the pending comments among {@code keys}. Returns false if the services failed and
+   * some of the comments should be tried again; comments that have failed {@link #MAX_ATTEMPTS}
+   * times are marked failed instead.
+   */
+  public boolean enrich(List<Key> keys) {
+    List<Entity> batch = pending(datastore.get(keys));
+    if (batch.isEmpty()) {
+      return true;
+    }
+
+    List<Float> scores = null;
+    Map<Key, String> translations = null;
+    try {
+      List<String> texts = new ArrayList<>(batch.size());
+      for (Entity comment : batch) {
+        texts.add((String) comment.getProperty(TEXT_PROPERTY));
+      }
+      scores = sentimentService.analyze(texts);
+      translations = translate(batch);
+    } catch (Exception e) {
+      logger.log(Level.WARNING, "Could not enrich " + batch.size() + " comments", e);
+    }
+
+    Map<Key, Float> scoresByKey = new HashMap<>();
+    if (scores != null) {
+      for (int k = 0; k < batch.size(); k++) {
+        scoresByKey.put(batch.get(k).getKey(), scores.get(k));
+      }
+    }
+
+    // Write back in a transaction, so that comments deleted in the meantime are not recreated.
+    boolean retry = false;
+    Transaction transaction = datastore.beginTransaction(TransactionOptions.Builder.withXG(true));
+    try {
+      List<Entity> current = pending(datastore.get(transaction, keys));
+      for (Entity comment : current) {
+        Key key = comment.getKey();
+        if (scoresByKey.containsKey(key)) {
+          comment.setUnindexedProperty(SENTIMENT_PROPERTY, scoresByKey.get(key));
+          comment.setUnindexedProperty(TRANSLATION_PROPERTY, translations.get(key));
+          comment.setProperty(STATUS_PROPERTY, DONE);
+          continue;
+        }
+        Long attempts = (Long) comment.getProperty(ATTEMPTS_PROPERTY);
+        long failures = (attempts == null ? 0 : attempts) + 1;
+        comment.setUnindexedProperty(ATTEMPTS_PROPERTY, failures);
+        if (failures >= MAX_ATTEMPTS) {
+          comment.setProperty(STATUS_PROPERTY, FAILED);
+        } else {
+          retry = true;
+        }
+      }
+      datastore.put(transaction, current);
+      transaction.commit();
+    } finally {
+      if (transaction.isActive()) {
+        transaction.rollback();
+      }
+    }
+    return !retry;
+  }
+
+  /** Returns the comments that are still pending. A duplicate task may have finished the rest. */
+  private static List<Entity> pending(Map<Key, Entity> comments) {
+    List<Entity> pending = new ArrayList<>(comments.size());
+    for (Entity comment : comments.values()) {
+      if (PENDING.equals(comment.getProperty(STATUS_PROPERTY))) {
+        pending.add(comment);
+      }
+    }
+    return pending;
+  }
+
+  /** Translates the batch with one call per target language. */
+  private Map<Key, String> translate(List<Entity> batch) throws Exception {
+    Map<String, List<Entity>> byLanguage = new LinkedHashMap<>();
+    for (Entity comment : batch) {
+      String language = (String) comment.getProperty(LANGUAGE_PROPERTY);
+      byLanguage.computeIfAbsent(language, l -> new ArrayList<>()).add(comment);
+    }
+
+    Map<Key, String> translations = new LinkedHashMap<>();
+    for (Map.Entry<String, List<Entity>> group : byLanguage.entrySet()) {
+      if (group.getKey() == null) {
+        // No language was chosen, so the comment is kept as written.
+        for (Entity comment : group.getValue()) {
+          translations.put(comment.getKey(), (String) comment.getProperty(TEXT_PROPERTY));
+        }
+        continue;
+      }
+      List<String> texts = new ArrayList<>(group.getValue().size());
+      for (Entity comment : group.getValue()) {
+        texts.add((String) comment.getProperty(TEXT_PROPERTY));
+      }
+      List<String> translated = translationService.translate(texts, group.getKey());
+      for (int k = 0; k < texts.size(); k++) {
+        translations.put(group.getValue().get(k).getKey(), translated.get(k));
+      }
+    }
+    return translations;
+  }
+}
@@ -0,0 +1,251 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.enrichment;
+
+import com.google.appengine.api.datastore.DatastoreService;
+import com.google.appengine.api.datastore.Entity;
+import com.google.appengine.api.datastore.FetchOptions;
+import com.google.appengine.api.datastore.Key;
+import com.google.appengine.api.datastore.KeyFactory;
+import com.google.appengine.api.datastore.Query;
+import com.google.appengine.api.datastore.Query.FilterOperator;
+import com.google.appengine.api.datastore.Query.FilterPredicate;
+import com.google.appengine.api.datastore.Text;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * EnrichmentCache remembers sentiment scores and translations by a hash of the text and the
+ * target language, so that repeated texts such as short reactions are only sent to the APIs once.
+ * It keeps at most a fixed number of entries, dropping the least recently used first, and forgets
+ * entries after a time-to-live. Entries can also be saved to Datastore so that they survive a
+ * restart.
+ *
+ * <p>Saved entries are deleted once they expire: expired entries found by a lookup are deleted
+ * right away, and {@link #trim} deletes the rest. Storing entries runs a trim at most once an
+ * hour, so Datastore holds little more than one time-to-live's worth of entries.
+ */
+public class EnrichmentCache {
+  /** The Datastore kind of saved entries. */
+  public static final String KIND = "EnrichmentCache";
+
+  // How often storing entries also deletes expired ones from Datastore, and the most entities
+  // deleted by one trim. Whatever is left over is deleted by the next trim.
+  private static final long TRIM_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(1);
+  private static final int MAX_TRIM_DELETES = 5000;
+  // The most keys in one Datastore delete call.
+  private static final int DELETE_BATCH_SIZE = 500;
+
+  private final int maxEntries;
+  private final long ttlMillis;
+  private final DatastoreService datastore;
+  private final Map<String, Entry> entries;
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private long nextTrim;
+
+  /**
+   * Creates a cache.
+   *
+   * @param maxEntries The most entries kept in memory.
+   * @param ttlMillis How long an entry stays valid after it is stored.
+   * @param datastore Where entries are saved, or null to keep them in memory only.
+   */
+  public EnrichmentCache(int maxEntries, long ttlMillis, DatastoreService datastore) {
+    this.maxEntries = maxEntries;
+    this.ttlMillis = ttlMillis;
+    this.datastore = datastore;
+    this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+        return size() > EnrichmentCache.this.maxEntries;
+      }
+    };
+  }
+
+  /**
+   * Returns the cache key for {@code text} in {@code language}. {@code kind} keeps sentiment
+   * scores and translations of the same text apart.
+   */
+  public static String key(String kind, String text, String language) {
+    try {
+      byte[] digest =
+          MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+      String hash = Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+      return kind + ":" + language + ":" + hash;
+    } catch (NoSuchAlgorithmException e) {
+      // Every Java platform is required to support SHA-256.
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Returns the values cached for {@code keys}. Keys that are missing or expired are left out.
+   */
+  public Map<String, Object> getAll(Collection<String> keys) {
+    long now = System.currentTimeMillis();
+    Map<String, Object> found = new HashMap<>();
+    List<Key> unknown = new ArrayList<>();
+    synchronized (this) {
+      for (String key : keys) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expires > now) {
+          found.put(key, entry.value);
+        } else if (datastore != null) {
+          unknown.add(KeyFactory.createKey(KIND, key));
+        }
+      }
+    }
+
+    // Look up everything that is not in memory with one Datastore call.
+    if (!unknown.isEmpty()) {
+      List<Key> expired = new ArrayList<>();
+      for (Entity saved : datastore.get(unknown).values()) {
+        long expires = (Long) saved.getProperty("expires");
+        if (expires <= now) {
+          expired.add(saved.getKey());
+        } else {
+          String key = saved.getKey().getName();
+          Object value = fromDatastore(saved.getProperty("value"));
+          found.put(key, value);
+          synchronized (this) {
+            entries.put(key, new Entry(value, expires));
+          }
+        }
+      }
+      if (!expired.isEmpty()) {
+        datastore.delete(expired);
+      }
+    }
+
+    // Counted per requested key, so that a key asked for twice counts twice either way.
+    int hitCount = 0;
+    for (String key : keys) {
+      if (found.containsKey(key)) {
+        hitCount++;
+      }
+    }
+    hits.addAndGet(hitCount);
+    misses.addAndGet(keys.size() - hitCount);
+    return found;
+  }
+
+  /** Stores {@code values}, replacing any earlier values for the same keys. */
+  public void putAll(Map<String, Object> values) {
+    long expires = System.currentTimeMillis() + ttlMillis;
+    synchronized (this) {
+      for (Map.Entry<String, Object> value : values.entrySet()) {
+        entries.put(value.getKey(), new Entry(value.getValue(), expires));
+      }
+    }
+
+    if (datastore != null && !values.isEmpty()) {
+      List<Entity> saved = new ArrayList<>(values.size());
+      for (Map.Entry<String, Object> value : values.entrySet()) {
+        Entity entity = new Entity(KIND, value.getKey());
+        entity.setUnindexedProperty("value", toDatastore(value.getValue()));
+        // Indexed so that trim can find expired entries.
+        entity.setProperty("expires", expires);
+        saved.add(entity);
+      }
+      datastore.put(saved);
+
+      boolean trimDue;
+      synchronized (this) {
+        trimDue = expires - ttlMillis >= nextTrim;
+        if (trimDue) {
+          nextTrim = expires - ttlMillis + TRIM_INTERVAL_MILLIS;
+        }
+      }
+      if (trimDue) {
+        trim();
+      }
+    }
+  }
+
+  /**
+   * Deletes up to a few thousand expired entries from Datastore and returns how many were
+   * deleted. Does nothing if entries are only kept in memory.
+   */
+  public int trim() {
+    if (datastore == null) {
+      return 0;
+    }
+    Query expired = new Query(KIND)
+        .setFilter(new FilterPredicate(
+            "expires", FilterOperator.LESS_THAN_OR_EQUAL, System.currentTimeMillis()))
+        .setKeysOnly();
+    List<Key> batch = new ArrayList<>(DELETE_BATCH_SIZE);
+    int deleted = 0;
+    for (Entity entity : datastore.prepare(expired).asIterable(
+        FetchOptions.Builder.withLimit(MAX_TRIM_DELETES).chunkSize(DELETE_BATCH_SIZE))) {
+      batch.add(entity.getKey());
+      if (batch.size() == DELETE_BATCH_SIZE) {
+        datastore.delete(batch);
+        deleted += batch.size();
+        batch.clear();
+      }
+    }
+    if (!batch.isEmpty()) {
+      datastore.delete(batch);
+      deleted += batch.size();
+    }
+    return deleted;
+  }
+
+  /** Returns the number of lookups that were answered from the cache. */
+  public long hits() {
+    return hits.get();
+  }
+
+  /** Returns the number of lookups that had to go to the APIs. */
+  public long misses() {
+    return misses.get();
+  }
+
+  /** Returns the number of entries held in memory. */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  private static Object toDatastore(Object value) {
+    // Strings longer than 1500 bytes can only be saved as Text.
+    return value instanceof String ? new Text((String) value) : value;
+  }
+
+  private static Object fromDatastore(Object value) {
+    return value instanceof Text ? ((Text) value).getValue() : value;
+  }
+
+  private static final class Entry {
+    final Object value;
+    final long expires;
+
+    Entry(Object value, long expires) {
+      this.value = value;
+      this.expires = expires;
+    }
+  }
+}
@@ -12,15 +12,15 @@
 // See the License for the specific language governing permissions and
 // limitations under the License.
 
-package com.google.sps.data;
+package com.google.sps.enrichment;
 
-/** Represents a UFO sighting at a specific lat lng point. */
-public class UfoSighting {
-  private double lat;
-  private double lng;
+import java.io.IOException;
+import java.util.List;
 
-  public UfoSighting(double lat, double lng) {
-    this.lat = lat;
-    this.lng = lng;
-  }
+/** Scores the sentiment of comment texts. */
+public interface SentimentService {
+  /**
+   * Returns the sentiment score, from -1 to 1, of each of {@code texts}, in the same order.
+   */
+  List<Float> analyze(List<String> texts) throws IOException;
 }
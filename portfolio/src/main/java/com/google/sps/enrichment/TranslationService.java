@@ -0,0 +1,26 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.enrichment;
+
+import java.io.IOException;
+import java.util.List;
+
+/** Translates comment texts. */
+public interface TranslationService {
+  /**
+   * Returns each of {@code texts} translated into {@code targetLanguage}, in the same order.
+   */
+  List<String> translate(List<String> texts, String targetLanguage) throws IOException;
+}
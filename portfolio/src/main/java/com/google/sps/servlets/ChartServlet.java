@@ -2,45 +2,49 @@ package com.google.sps.servlets;
 
 import com.google.gson.Gson;
 import java.io.IOException;
-import java.util.Scanner;
+import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.util.Collection;
 import com.google.sps.data.Cases;
+import com.google.sps.data.CsvLoader;
+import com.google.sps.data.CsvLoader.ColumnType;
 import java.util.ArrayList;
 import java.util.List;
 
 @WebServlet("/chart")
 public class ChartServlet extends HttpServlet {
 
-  private Collection<Cases> covidCases;
+  // The data never changes, so the JSON is built once and the same bytes are sent every time.
+  private JsonSnapshot snapshot;
   
   @Override
-  public void init() {
+  public void init() throws ServletException {
 
-    covidCases = new ArrayList<>();
-
-    Scanner scanner = new Scanner(getServletContext().getResourceAsStream("/WEB-INF/covid.csv"));
-    while (scanner.hasNextLine()) {
-      String line = scanner.nextLine();
-      String[] cells = line.split(",");
-      
-      // Cases and deaths of every state on July 8th 2020.
-      String state = String.valueOf(cells[1]);
-      Integer cases = Integer.valueOf(cells[3]);
-      Integer deaths = Integer.valueOf(cells[4]);    
+    // Cases and deaths of every state on July 8th 2020.
+    CsvLoader.Table table;
+    try {
+      table = CsvLoader.load(getServletContext(), "/WEB-INF/covid.csv",
+          ColumnType.SKIP, ColumnType.STRING, ColumnType.SKIP, ColumnType.INT, ColumnType.INT);
+    } catch (IOException e) {
+      throw new ServletException("Could not read covid.csv", e);
+    }
+    String[] states = table.stringColumn(1);
+    int[] cases = table.intColumn(3);
+    int[] deaths = table.intColumn(4);
 
-      covidCases.add(new Cases(state, cases, deaths));
+    Collection<Cases> covidCases = new ArrayList<>(table.rows());
+    for (int row = 0; row < table.rows(); row++) {
+      covidCases.add(new Cases(states[row], cases[row], deaths[row]));
     }
-    scanner.close();
+
+    snapshot = new JsonSnapshot(new Gson().toJson(covidCases));
   }
 
   @Override
   public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
-    response.setContentType("application/json");
-    String json = new Gson().toJson(covidCases);
-    response.getWriter().println(json);
+    snapshot.send(request, response);
   }
 }
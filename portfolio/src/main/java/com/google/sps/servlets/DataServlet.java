@@ -14,24 +14,20 @@
 
 package com.google.sps.servlets;
 
+import com.google.appengine.api.datastore.Cursor;
 import com.google.appengine.api.datastore.DatastoreService;
 import com.google.appengine.api.datastore.DatastoreServiceFactory;
 import com.google.appengine.api.datastore.Entity;
-import com.google.appengine.api.datastore.PreparedQuery;
 import com.google.appengine.api.datastore.Query;
+import com.google.appengine.api.datastore.QueryResultIterator;
 import com.google.appengine.api.datastore.Query.SortDirection;
 import com.google.appengine.api.datastore.FetchOptions;
 import com.google.gson.Gson;
-import com.google.cloud.language.v1.Document;
-import com.google.cloud.language.v1.LanguageServiceClient;
-import com.google.cloud.language.v1.Sentiment;
+import com.google.gson.stream.JsonWriter;
 import com.google.sps.data.CommentClass;
-import com.google.cloud.translate.Translate;
-import com.google.cloud.translate.TranslateOptions;
-import com.google.cloud.translate.Translation;
+import com.google.sps.enrichment.CommentEnricher;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Collections;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
@@ -45,24 +41,76 @@ import com.google.appengine.api.users.UserServiceFactory;
 @WebServlet("/data")
 public class DataServlet extends HttpServlet {
 
-  private final List<Object> json = new ArrayList<>();
+  // The number of comments on a page when the client does not ask for a size, and the most it
+  // may ask for. Pages are written out as they are read, so this bounds the work per request.
+  private static final int DEFAULT_PAGE_SIZE = 10;
+  private static final int MAX_PAGE_SIZE = 100;
 
+  private CommentEnricher enricher;
+
+  /** Picks up the enricher that {@code EnrichmentSetup} created. */
+  @Override
+  public void init() {
+    enricher = (CommentEnricher) getServletContext().getAttribute(
+        CommentEnricher.class.getName());
+  }
+
+  /**
+   * Writes one page of comments as {@code {"comments": [...], "nextPageToken": "..."}}. Pass the
+   * token back as {@code cursor} to get the next page; it is left out after the last page.
+   */
   @Override 
   public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
-    int quantity = Integer.parseInt(request.getParameter("amount"));
+    int quantity;
+    try {
+      quantity = Integer.parseInt(
+          getParameter(request, "amount", String.valueOf(DEFAULT_PAGE_SIZE)));
+    } catch (NumberFormatException e) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "amount must be a number");
+      return;
+    }
+    if (quantity < 0 || quantity > MAX_PAGE_SIZE) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST,
+          "amount must be between 0 and " + MAX_PAGE_SIZE);
+      return;
+    }
+
+    FetchOptions fetchOptions = FetchOptions.Builder.withLimit(quantity);
+    String cursor = request.getParameter("cursor");
+    if (cursor != null) {
+      try {
+        fetchOptions.startCursor(Cursor.fromWebSafeString(cursor));
+      } catch (IllegalArgumentException e) {
+        response.sendError(HttpServletResponse.SC_BAD_REQUEST, "cursor is not valid");
+        return;
+      }
+    }
+
     Query query = new Query("Comments").addSort("commentInstance", SortDirection.ASCENDING);
     DatastoreService datastore = DatastoreServiceFactory.getDatastoreService();
-    List<Entity> results = datastore.prepare(query).asList(FetchOptions.Builder.withLimit(quantity));
-    
-    for (Entity entity : results) {
-      String comment = (String) entity.getProperty("commentInstance");
-      json.add(comment);
-    }
+    QueryResultIterator<Entity> results =
+        datastore.prepare(query).asQueryResultIterator(fetchOptions);
 
-    // Send JSON string.
-    String jsonVersion = new Gson().toJson(json);
+    // Send JSON string, one comment at a time as the results come in.
     response.setContentType("application/json;");
-    response.getWriter().println(jsonVersion);
+    response.setCharacterEncoding("UTF-8");
+    Gson gson = new Gson();
+    JsonWriter writer = new JsonWriter(response.getWriter());
+    writer.beginObject();
+    writer.name("comments").beginArray();
+    int count = 0;
+    while (results.hasNext()) {
+      writer.value(commentJson(results.next(), gson));
+      count++;
+    }
+    writer.endArray();
+
+    // A short page means there is nothing left to read.
+    if (count == quantity && quantity > 0) {
+      writer.name("nextPageToken").value(results.getCursor().toWebSafeString());
+    }
+    writer.endObject();
+    writer.flush();
   }
 
   @Override
@@ -75,22 +123,17 @@ public class DataServlet extends HttpServlet {
     UserService userService = UserServiceFactory.getUserService();
     String email = userService.getCurrentUser().getEmail();
 
-    Document doc = Document.newBuilder().setContent(text).setType(Document.Type.PLAIN_TEXT).build();
-    LanguageServiceClient languageService = LanguageServiceClient.create();
-    Sentiment sentiment = languageService.analyzeSentiment(doc).getDocumentSentiment();
-    float score = sentiment.getScore();
-    languageService.close();
-
-    Translate translate = TranslateOptions.getDefaultInstance().getService();
-    Translation translation = translate.translate(text, Translate.TranslateOption.targetLanguage(language));
-    String finalText = translation.getTranslatedText();
-
-    CommentClass commentInstance = new CommentClass(finalText, score);
+    // Save the comment as written right away; the enricher scores and translates it later.
+    CommentClass commentInstance = new CommentClass(text, 0);
     String commentInstanceJSON = new Gson().toJson(commentInstance);
-    
+
     Entity taskEntity = new Entity("Comments");
     taskEntity.setProperty("commentInstance", commentInstanceJSON);
     taskEntity.setProperty("email", email);
+    taskEntity.setUnindexedProperty(CommentEnricher.TEXT_PROPERTY, text);
+    taskEntity.setUnindexedProperty(CommentEnricher.LANGUAGE_PROPERTY, language);
+    taskEntity.setProperty(CommentEnricher.STATUS_PROPERTY, CommentEnricher.PENDING);
+    taskEntity.setProperty(CommentEnricher.QUEUED_PROPERTY, System.currentTimeMillis());
 
     // Storing comments in their respective bins.
     if (status.equals("positive")) {
@@ -103,12 +146,31 @@ public class DataServlet extends HttpServlet {
 
     DatastoreService datastore = DatastoreServiceFactory.getDatastoreService();
     datastore.put(taskEntity);
-    
+    try {
+      enricher.submit(Collections.singletonList(taskEntity.getKey()));
+    } catch (RuntimeException e) {
+      // The comment stays pending and a later rescan queues it.
+      log("Could not queue enrichment of comment " + taskEntity.getKey(), e);
+    }
+
     response.setContentType("text/html; charset=UTF-8");
     response.setCharacterEncoding("UTF-8");
     response.sendRedirect("/index.html");
 }
 
+  /**
+   * Returns the comment as written until it has been enriched, then its translation and score.
+   * The stored {@code commentInstance} is only the sort key and is never rewritten.
+   */
+  private static String commentJson(Entity comment, Gson gson) {
+    String translation = (String) comment.getProperty(CommentEnricher.TRANSLATION_PROPERTY);
+    if (translation == null) {
+      return (String) comment.getProperty("commentInstance");
+    }
+    Number sentiment = (Number) comment.getProperty(CommentEnricher.SENTIMENT_PROPERTY);
+    return gson.toJson(new CommentClass(translation, sentiment.floatValue()));
+  }
+
 /**
 * @return the request parameter, or the default value if the parameter
 *         was not specified by the client
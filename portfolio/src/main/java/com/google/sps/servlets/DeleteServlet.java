@@ -3,34 +3,123 @@ package com.google.sps.servlets;
 import com.google.appengine.api.datastore.DatastoreService;
 import com.google.appengine.api.datastore.DatastoreServiceFactory;
 import com.google.appengine.api.datastore.Entity;
-import com.google.appengine.api.datastore.PreparedQuery;
-import com.google.appengine.api.datastore.Query;
-import com.google.appengine.api.datastore.Query.SortDirection;
-import com.google.appengine.api.datastore.FetchOptions;
-import com.google.gson.Gson;
+import com.google.appengine.api.datastore.EntityNotFoundException;
+import com.google.appengine.api.datastore.Key;
+import com.google.appengine.api.datastore.KeyFactory;
+import com.google.appengine.api.datastore.Transaction;
+import com.google.appengine.api.taskqueue.Queue;
+import com.google.appengine.api.taskqueue.QueueFactory;
+import com.google.gson.JsonObject;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.ConcurrentModificationException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import com.google.appengine.api.datastore.Key;
 
+/**
+ * Deletes every comment. The purge is saved as a single job entity, which a POST claims in a
+ * transaction so that only one request on any instance starts it. The first batch is deleted
+ * during the request; each batch then adds a task for the next one, in the same transaction that
+ * saves the job's cursor and count, so the purge carries on across requests and instances. GET
+ * reports the progress of the job.
+ *
+ * <p>A job whose batches keep failing is saved as failed. Posting again resumes a failed job from
+ * its cursor, and also a running one whose cursor has not moved for five minutes, since its task
+ * has most likely been lost.
+ */
 @WebServlet("/delete-data")
 public class DeleteServlet extends HttpServlet {
+  // The purge job is saved as a single entity of this kind.
+  static final Key JOB_KEY = KeyFactory.createKey("PurgeJob", "Comments");
+  static final String RUNNING = "running";
+  static final String DONE = "done";
+  static final String FAILED = "failed";
+
+  // A running job whose cursor has not moved for this long is treated as abandoned.
+  private static final long STALE_MILLIS = TimeUnit.MINUTES.toMillis(5);
+  // The claim also queues the first batch, delayed so that the request can usually delete it.
+  private static final long FIRST_TASK_DELAY_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+  private static final Logger logger = Logger.getLogger(DeleteServlet.class.getName());
+
+  private final DatastoreService datastore = DatastoreServiceFactory.getDatastoreService();
+
+  @Override
+  public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    writeProgress(loadJob(datastore, null), response);
+  }
 
   @Override 
   public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
-    Query query = new Query("Comments");
-    DatastoreService datastore = DatastoreServiceFactory.getDatastoreService();
-    PreparedQuery results = datastore.prepare(query);
+    Queue queue = QueueFactory.getQueue(PurgeTaskServlet.QUEUE_NAME);
+    String cursor;
+    Transaction transaction = datastore.beginTransaction();
+    try {
+      Entity job = loadJob(datastore, transaction);
+      if (job != null && RUNNING.equals(job.getProperty("state")) && !isStale(job)) {
+        // A purge is already under way.
+        writeProgress(job, response);
+        return;
+      }
+      if (job == null || DONE.equals(job.getProperty("state"))) {
+        job = new Entity(JOB_KEY);
+        job.setProperty("deleted", 0L);
+      }
+      // Otherwise the job failed or was abandoned, and it resumes from its cursor.
+      cursor = (String) job.getProperty("cursor");
+      job.setProperty("state", RUNNING);
+      job.setProperty("updated", System.currentTimeMillis());
+      datastore.put(transaction, job);
+      // If this request does not get through the first batch, the task does.
+      queue.add(transaction,
+          PurgeTaskServlet.task(cursor).countdownMillis(FIRST_TASK_DELAY_MILLIS));
+      transaction.commit();
+    } catch (ConcurrentModificationException e) {
+      // Another request claimed the job first.
+      writeProgress(loadJob(datastore, null), response);
+      return;
+    } finally {
+      if (transaction.isActive()) {
+        transaction.rollback();
+      }
+    }
 
-    for (Entity entity : results.asIterable()) {
-      datastore.delete(entity.getKey());
+    // Small tables are cleared before the response is sent.
+    try {
+      PurgeTaskServlet.deleteBatch(datastore, queue, cursor);
+    } catch (RuntimeException e) {
+      logger.log(Level.WARNING, "Comment purge batch failed; its task will retry it", e);
     }
-    response.setContentType("text/html;");
-    response.getWriter().println();
+    writeProgress(loadJob(datastore, null), response);
   }
 
+  private static boolean isStale(Entity job) {
+    Long updated = (Long) job.getProperty("updated");
+    return updated == null || System.currentTimeMillis() - updated > STALE_MILLIS;
+  }
+
+  /** Returns the purge job, or null if there has never been one. */
+  static Entity loadJob(DatastoreService datastore, Transaction transaction) {
+    try {
+      return datastore.get(transaction, JOB_KEY);
+    } catch (EntityNotFoundException e) {
+      return null;
+    }
+  }
+
+  private static void writeProgress(Entity job, HttpServletResponse response) throws IOException {
+    JsonObject progress = new JsonObject();
+    if (job == null) {
+      progress.addProperty("state", "none");
+    } else {
+      progress.addProperty("state", (String) job.getProperty("state"));
+      progress.addProperty("deleted", (Long) job.getProperty("deleted"));
+    }
+    response.setContentType("application/json;");
+    response.getWriter().println(progress);
+  }
 }
@@ -0,0 +1,46 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.gson.JsonObject;
+import com.google.sps.enrichment.EnrichmentCache;
+import java.io.IOException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/** Reports how many sentiment and translation lookups the enrichment cache has answered. */
+@WebServlet("/enrichment-cache")
+public class EnrichmentCacheServlet extends HttpServlet {
+
+  @Override
+  public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    EnrichmentCache cache =
+        (EnrichmentCache) getServletContext().getAttribute(EnrichmentCache.class.getName());
+    if (cache == null) {
+      // EnrichmentSetup has not run.
+      response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+      return;
+    }
+
+    JsonObject stats = new JsonObject();
+    stats.addProperty("hits", cache.hits());
+    stats.addProperty("misses", cache.misses());
+    stats.addProperty("size", cache.size());
+    response.setContentType("application/json;");
+    response.getWriter().println(stats);
+  }
+}
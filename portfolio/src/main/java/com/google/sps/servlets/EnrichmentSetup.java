@@ -0,0 +1,121 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps.servlets;
+
+import com.google.appengine.api.datastore.DatastoreService;
+import com.google.appengine.api.datastore.DatastoreServiceFactory;
+import com.google.appengine.api.taskqueue.QueueFactory;
+import com.google.cloud.language.v1.LanguageServiceClient;
+import com.google.cloud.translate.Translate;
+import com.google.sps.enrichment.CachingSentimentService;
+import com.google.sps.enrichment.CachingTranslationService;
+import com.google.sps.enrichment.ClientPool;
+import com.google.sps.enrichment.CloudSentimentService;
+import com.google.sps.enrichment.CloudTranslationService;
+import com.google.sps.enrichment.CommentEnricher;
+import com.google.sps.enrichment.EnrichmentCache;
+import com.google.sps.enrichment.SentimentService;
+import com.google.sps.enrichment.TranslationService;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.annotation.WebListener;
+
+/**
+ * Builds the comment enricher once per instance and shares it, and its cache, through servlet
+ * context attributes named after their classes. The enricher does its work in Task Queue requests,
+ * so nothing here starts a thread.
+ */
+@WebListener
+public class EnrichmentSetup implements ServletContextListener {
+
+  /** The push queue that enrichment tasks are added to; see queue.xml. */
+  public static final String QUEUE_NAME = "enrichment";
+
+  // The most comments sent to the services in one call.
+  private static final int ENRICHMENT_BATCH_SIZE = 20;
+
+  // The most API clients of each kind kept open, unless the clientPoolSize context parameter says
+  // otherwise.
+  private static final int DEFAULT_CLIENT_POOL_SIZE = 4;
+
+  // Defaults for the enrichmentCacheSize and enrichmentCacheTtlMinutes context parameters. Set
+  // enrichmentCachePersistent to true to keep cached results in Datastore across restarts.
+  private static final int DEFAULT_CACHE_SIZE = 10000;
+  private static final int DEFAULT_CACHE_TTL_MINUTES = 24 * 60;
+
+  private ClientPool<LanguageServiceClient> languageClients;
+  private ClientPool<Translate> translateClients;
+
+  /**
+   * Opens the client pools and creates the enricher. The sentiment and translation services can
+   * be replaced, for example by local fakes, by setting servlet context attributes named after
+   * their interfaces; no Cloud clients are created for a replaced service.
+   */
+  @Override
+  public void contextInitialized(ServletContextEvent event) {
+    ServletContext context = event.getServletContext();
+    int poolSize = intParameter(context, "clientPoolSize", DEFAULT_CLIENT_POOL_SIZE);
+    DatastoreService datastore = DatastoreServiceFactory.getDatastoreService();
+
+    SentimentService sentimentService = contextAttribute(context, SentimentService.class);
+    if (sentimentService == null) {
+      languageClients = CloudSentimentService.newClientPool(poolSize);
+      sentimentService = new CloudSentimentService(languageClients);
+    }
+    TranslationService translationService = contextAttribute(context, TranslationService.class);
+    if (translationService == null) {
+      translateClients = CloudTranslationService.newClientPool(poolSize);
+      translationService = new CloudTranslationService(translateClients);
+    }
+
+    // Repeated texts are answered from the cache. It is shared so that its hit and miss counts
+    // can be reported.
+    EnrichmentCache cache = new EnrichmentCache(
+        intParameter(context, "enrichmentCacheSize", DEFAULT_CACHE_SIZE),
+        TimeUnit.MINUTES.toMillis(
+            intParameter(context, "enrichmentCacheTtlMinutes", DEFAULT_CACHE_TTL_MINUTES)),
+        Boolean.parseBoolean(context.getInitParameter("enrichmentCachePersistent"))
+            ? datastore : null);
+    context.setAttribute(EnrichmentCache.class.getName(), cache);
+    sentimentService = new CachingSentimentService(sentimentService, cache);
+    translationService = new CachingTranslationService(translationService, cache);
+
+    context.setAttribute(CommentEnricher.class.getName(),
+        new CommentEnricher(datastore, sentimentService, translationService,
+            QueueFactory.getQueue(QUEUE_NAME), ENRICHMENT_BATCH_SIZE));
+  }
+
+  @Override
+  public void contextDestroyed(ServletContextEvent event) {
+    if (languageClients != null) {
+      languageClients.close();
+    }
+    if (translateClients != null) {
+      translateClients.close();
+    }
+  }
+
+  private static int intParameter(ServletContext context, String name, int defaultValue) {
+    String value = context.getInitParameter(name);
+    return value != null ? Integer.parseInt(value) : defaultValue;
+  }
+
+  private static <T> T contextAttribute(ServletContext context, Class<T> type) {
+    return type.cast(context.getAttribute(type.getName()));
+  }
+}
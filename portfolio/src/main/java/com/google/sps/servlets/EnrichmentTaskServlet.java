@@ -0,0 +1,63 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps.servlets;
+
+import com.google.appengine.api.datastore.Key;
+import com.google.appengine.api.datastore.KeyFactory;
+import com.google.sps.enrichment.CommentEnricher;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Runs one enrichment task from the enrichment push queue. A failed batch is answered with an
+ * error status, so that the queue retries the task with backoff.
+ */
+@WebServlet(CommentEnricher.TASK_PATH)
+public class EnrichmentTaskServlet extends HttpServlet {
+
+  @Override
+  public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    // App Engine removes this header from requests that do not come from Task Queue.
+    if (request.getHeader("X-AppEngine-QueueName") == null) {
+      response.sendError(HttpServletResponse.SC_FORBIDDEN);
+      return;
+    }
+
+    String[] values = request.getParameterValues(CommentEnricher.KEY_PARAMETER);
+    List<Key> keys = new ArrayList<>();
+    try {
+      for (String value : values == null ? new String[0] : values) {
+        keys.add(KeyFactory.stringToKey(value));
+      }
+    } catch (IllegalArgumentException e) {
+      // Retrying would not help, so the task is dropped.
+      log("Dropping enrichment task with a malformed key", e);
+      return;
+    }
+
+    CommentEnricher enricher = (CommentEnricher) getServletContext().getAttribute(
+        CommentEnricher.class.getName());
+    if (!keys.isEmpty() && !enricher.enrich(keys)) {
+      response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE,
+          "Enrichment failed; the task will be retried");
+    }
+  }
+}
@@ -1,12 +1,10 @@
 package com.google.sps.servlets;
 
-import com.google.sps.data.Location;
-import com.google.gson.Gson;
+import com.google.sps.data.CsvLoader;
+import com.google.sps.data.CsvLoader.ColumnType;
+import com.google.sps.data.PointSet;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Collection;
-import java.util.Scanner;
+import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
@@ -15,30 +13,26 @@ import javax.servlet.http.HttpServletResponse;
 @WebServlet("/interactive")
 public class Interactive extends HttpServlet {
 
-  private Collection<Location> locations;
+  // The data never changes, so the JSON is built once and the same bytes are sent every time.
+  private JsonSnapshot snapshot;
 
   @Override
-  public void init() {
+  public void init() throws ServletException {
       
-    locations = new ArrayList<>();
-
-    Scanner scanner = new Scanner(getServletContext().getResourceAsStream("/WEB-INF/favorites.csv"));
-    while (scanner.hasNextLine()) {
-      String line = scanner.nextLine();
-      String[] cells = line.split(",");
-
-      double latitude = Double.parseDouble(cells[0]);
-      double longitude = Double.parseDouble(cells[1]);
-
-      locations.add(new Location(latitude, longitude));
+    CsvLoader.Table table;
+    try {
+      table = CsvLoader.load(getServletContext(), "/WEB-INF/favorites.csv",
+          ColumnType.DOUBLE, ColumnType.DOUBLE);
+    } catch (IOException e) {
+      throw new ServletException("Could not read favorites.csv", e);
     }
-    scanner.close();
+    PointSet locations = new PointSet(table.doubleColumn(0), table.doubleColumn(1));
+
+    snapshot = new JsonSnapshot(locations.toJson());
   }
 
   @Override
   public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
-    String json = new Gson().toJson(locations);
-    response.setContentType("application/json");
-    response.getWriter().println(json);
+    snapshot.send(request, response);
   }
 }
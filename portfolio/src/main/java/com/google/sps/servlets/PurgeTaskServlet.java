@@ -0,0 +1,166 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.appengine.api.datastore.Cursor;
+import com.google.appengine.api.datastore.DatastoreService;
+import com.google.appengine.api.datastore.DatastoreServiceFactory;
+import com.google.appengine.api.datastore.Entity;
+import com.google.appengine.api.datastore.FetchOptions;
+import com.google.appengine.api.datastore.Key;
+import com.google.appengine.api.datastore.Query;
+import com.google.appengine.api.datastore.QueryResultList;
+import com.google.appengine.api.datastore.Transaction;
+import com.google.appengine.api.taskqueue.Queue;
+import com.google.appengine.api.taskqueue.QueueFactory;
+import com.google.appengine.api.taskqueue.TaskOptions;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Deletes one batch of comments for the purge job that {@code DeleteServlet} started, and queues
+ * the task for the next batch. Each task carries the cursor it starts from; a task whose cursor no
+ * longer matches the job's is a duplicate of a batch that has already been saved, and does
+ * nothing. A batch that fails is retried by the queue, and the job is saved as failed after
+ * {@link #MAX_ATTEMPTS} tries.
+ */
+@WebServlet(PurgeTaskServlet.PATH)
+public class PurgeTaskServlet extends HttpServlet {
+  static final String QUEUE_NAME = "purge";
+  static final String PATH = "/tasks/purge";
+
+  // The most keys Datastore accepts in one delete call.
+  private static final int BATCH_SIZE = 500;
+  private static final String CURSOR_PARAMETER = "cursor";
+  // The number of times a batch is tried before the job is saved as failed.
+  private static final int MAX_ATTEMPTS = 5;
+
+  private static final Logger logger = Logger.getLogger(PurgeTaskServlet.class.getName());
+
+  private final DatastoreService datastore = DatastoreServiceFactory.getDatastoreService();
+
+  @Override
+  public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    // App Engine removes this header from requests that do not come from Task Queue.
+    if (request.getHeader("X-AppEngine-QueueName") == null) {
+      response.sendError(HttpServletResponse.SC_FORBIDDEN);
+      return;
+    }
+
+    String cursor = request.getParameter(CURSOR_PARAMETER);
+    if (cursor != null && cursor.isEmpty()) {
+      cursor = null;
+    }
+    String retries = request.getHeader("X-AppEngine-TaskRetryCount");
+    int attempt = (retries == null ? 0 : Integer.parseInt(retries)) + 1;
+
+    try {
+      deleteBatch(datastore, QueueFactory.getQueue(QUEUE_NAME), cursor);
+    } catch (RuntimeException e) {
+      if (attempt < MAX_ATTEMPTS) {
+        logger.log(Level.WARNING, "Comment purge batch failed; the queue will retry it", e);
+        response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        return;
+      }
+      // If this cannot be saved either, the exception fails the task and the queue retries it.
+      logger.log(Level.WARNING, "Comment purge stopped; posting again resumes it", e);
+      fail(datastore, cursor);
+    }
+  }
+
+  /** Returns a task that deletes the batch starting at {@code cursor}, or at the start if null. */
+  static TaskOptions task(String cursor) {
+    return TaskOptions.Builder.withUrl(PATH).param(CURSOR_PARAMETER, cursor == null ? "" : cursor);
+  }
+
+  /**
+   * Deletes the batch starting at {@code cursor}, saves the job's new cursor and count, and queues
+   * the next batch if there may be more. Does nothing if the job has already moved past
+   * {@code cursor} or is no longer running.
+   */
+  static void deleteBatch(DatastoreService datastore, Queue queue, String cursor) {
+    if (!isCurrent(DeleteServlet.loadJob(datastore, null), cursor)) {
+      return;
+    }
+
+    FetchOptions fetchOptions = FetchOptions.Builder.withLimit(BATCH_SIZE);
+    if (cursor != null) {
+      fetchOptions.startCursor(Cursor.fromWebSafeString(cursor));
+    }
+    QueryResultList<Entity> results =
+        datastore.prepare(new Query("Comments").setKeysOnly()).asQueryResultList(fetchOptions);
+    List<Key> keys = new ArrayList<>(results.size());
+    for (Entity entity : results) {
+      keys.add(entity.getKey());
+    }
+    datastore.delete(keys);
+
+    boolean more = keys.size() == BATCH_SIZE;
+    String next = results.getCursor().toWebSafeString();
+    Transaction transaction = datastore.beginTransaction();
+    try {
+      Entity job = DeleteServlet.loadJob(datastore, transaction);
+      if (!isCurrent(job, cursor)) {
+        // A duplicate of this task saved the batch first.
+        return;
+      }
+      job.setProperty("deleted", (Long) job.getProperty("deleted") + keys.size());
+      job.setUnindexedProperty("cursor", next);
+      job.setProperty("state", more ? DeleteServlet.RUNNING : DeleteServlet.DONE);
+      job.setProperty("updated", System.currentTimeMillis());
+      datastore.put(transaction, job);
+      if (more) {
+        queue.add(transaction, task(next));
+      }
+      transaction.commit();
+    } finally {
+      if (transaction.isActive()) {
+        transaction.rollback();
+      }
+    }
+  }
+
+  /** Saves the job as failed, unless it has moved on since the batch at {@code cursor}. */
+  private static void fail(DatastoreService datastore, String cursor) {
+    Transaction transaction = datastore.beginTransaction();
+    try {
+      Entity job = DeleteServlet.loadJob(datastore, transaction);
+      if (!isCurrent(job, cursor)) {
+        return;
+      }
+      job.setProperty("state", DeleteServlet.FAILED);
+      job.setProperty("updated", System.currentTimeMillis());
+      datastore.put(transaction, job);
+      transaction.commit();
+    } finally {
+      if (transaction.isActive()) {
+        transaction.rollback();
+      }
+    }
+  }
+
+  private static boolean isCurrent(Entity job, String cursor) {
+    return job != null && DeleteServlet.RUNNING.equals(job.getProperty("state"))
+        && Objects.equals(job.getProperty("cursor"), cursor);
+  }
+}
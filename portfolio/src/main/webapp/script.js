@@ -37,28 +37,44 @@ async function getRandomMyNameUsingAsyncAwait() {
 }
 
 function getJSONString() {
-  fetch('/data').then(response => response.json()).then((messages) => {
+  fetch('/data').then(response => response.json()).then((page) => {
     // Stats is an object, not a string, so we have to
     // reference its fields to create HTML content.
 
     const jsonListElement = document.getElementById('json-string');
     jsonListElement.innerHTML = '';
-    for (const elem of messages) {
+    for (const elem of page.comments) {
       jsonListElement.appendChild(createListElement(elem));
     } 
   });
 }
 
+// The token for the page after the comments shown so far, if there is one.
+let nextPageToken = null;
+
 function loadingMyComments() {
+    // Choosing an amount starts over from the first page.
+    nextPageToken = null;
+    document.getElementById('log').innerHTML = '';
+    loadMoreComments();
+}
+
+function loadMoreComments() {
     // Stats is an object, not a string, so we have to
     // reference its fields to create HTML content.
     let elem = parseInt(document.getElementById('amount').value, 10);
     if (elem != 0) {
-      fetch(`/data?amount=${elem}`).then(response => response.json()).then((jsonVersion) => {
+      let url = `/data?amount=${elem}`;
+      if (nextPageToken) {
+        url += `&cursor=${encodeURIComponent(nextPageToken)}`;
+      }
+      fetch(url).then(response => response.json()).then((page) => {
         const oneComment = document.getElementById('log');
-        for (let i = 0; i < elem; i++) {
-          oneComment.appendChild(createListElement(jsonVersion[i]));
+        for (const comment of page.comments) {
+          oneComment.appendChild(createListElement(comment));
         }
+        nextPageToken = page.nextPageToken || null;
+        document.getElementById('more-comments').hidden = !nextPageToken;
       });
     }
 }
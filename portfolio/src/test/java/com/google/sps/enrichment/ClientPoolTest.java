@@ -0,0 +1,98 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps.enrichment;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class ClientPoolTest {
+  private final AtomicInteger open = new AtomicInteger();
+
+  private final ClientPool.Factory<Integer> factory = new ClientPool.Factory<Integer>() {
+    @Override
+    public Integer create() {
+      return open.incrementAndGet();
+    }
+
+    @Override
+    public boolean isHealthy(Integer client) {
+      return true;
+    }
+
+    @Override
+    public void close(Integer client) {
+      open.decrementAndGet();
+    }
+  };
+
+  @Test
+  public void closeReleasesWaitingCallers() throws Exception {
+    ClientPool<Integer> pool = new ClientPool<>(factory, 1);
+    CountDownLatch borrowed = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<Integer> holder = executor.submit(() -> pool.withClient(client -> {
+        borrowed.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          throw new IOException(e);
+        }
+        return client;
+      }));
+      Assert.assertTrue(borrowed.await(10, TimeUnit.SECONDS));
+      Future<Integer> waiter = executor.submit(() -> pool.withClient(client -> client));
+
+      pool.close();
+      try {
+        waiter.get(10, TimeUnit.SECONDS);
+        Assert.fail("Expected the waiting caller to fail");
+      } catch (ExecutionException e) {
+        Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+      }
+
+      // The client that was lent out is closed when it comes back.
+      release.countDown();
+      Assert.assertEquals(Integer.valueOf(1), holder.get(10, TimeUnit.SECONDS));
+      Assert.assertEquals(0, open.get());
+    } finally {
+      release.countDown();
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void returnedClientsAreReused() throws Exception {
+    ClientPool<Integer> pool = new ClientPool<>(factory, 2);
+    Assert.assertEquals(Integer.valueOf(1), pool.withClient(client -> client));
+    Assert.assertEquals(Integer.valueOf(1), pool.withClient(client -> client));
+    pool.close();
+    Assert.assertEquals(0, open.get());
+  }
+}
@@ -0,0 +1,169 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps.enrichment;
+
+import com.google.appengine.api.datastore.DatastoreService;
+import com.google.appengine.api.datastore.DatastoreServiceFactory;
+import com.google.appengine.api.datastore.Entity;
+import com.google.appengine.api.datastore.EntityNotFoundException;
+import com.google.appengine.api.datastore.Key;
+import com.google.appengine.api.taskqueue.QueueFactory;
+import com.google.appengine.api.taskqueue.dev.QueueStateInfo;
+import com.google.appengine.tools.development.testing.LocalDatastoreServiceTestConfig;
+import com.google.appengine.tools.development.testing.LocalServiceTestHelper;
+import com.google.appengine.tools.development.testing.LocalTaskQueueTestConfig;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class CommentEnricherTest {
+  private static final String QUEUE_NAME = "enrichment";
+  private static final float SCORE = 0.5f;
+  private static final int BATCH_SIZE = 20;
+
+  private final LocalServiceTestHelper helper = new LocalServiceTestHelper(
+      new LocalDatastoreServiceTestConfig(),
+      new LocalTaskQueueTestConfig().setQueueXmlPath("src/main/webapp/WEB-INF/queue.xml"));
+
+  private DatastoreService datastore;
+  private CommentEnricher enricher;
+  private boolean servicesDown;
+
+  @Before
+  public void setUp() {
+    helper.setUp();
+    datastore = DatastoreServiceFactory.getDatastoreService();
+
+    SentimentService sentiment = texts -> {
+      if (servicesDown) {
+        throw new IOException("Natural Language API timed out");
+      }
+      List<Float> scores = new ArrayList<>();
+      for (int k = 0; k < texts.size(); k++) {
+        scores.add(SCORE);
+      }
+      return scores;
+    };
+    TranslationService translation = (texts, language) -> texts;
+    enricher = new CommentEnricher(datastore, sentiment, translation,
+        QueueFactory.getQueue(QUEUE_NAME), BATCH_SIZE);
+  }
+
+  @After
+  public void tearDown() {
+    helper.tearDown();
+  }
+
+  @Test
+  public void enrichmentKeepsSortKey() throws Exception {
+    Entity comment = putComment("hello");
+
+    Assert.assertTrue(enricher.enrich(Collections.singletonList(comment.getKey())));
+
+    Entity stored = datastore.get(comment.getKey());
+    Assert.assertEquals(CommentEnricher.DONE,
+        stored.getProperty(CommentEnricher.STATUS_PROPERTY));
+    Assert.assertEquals("hello", stored.getProperty("commentInstance"));
+    Assert.assertEquals("hello", stored.getProperty(CommentEnricher.TRANSLATION_PROPERTY));
+    Assert.assertEquals(SCORE,
+        ((Number) stored.getProperty(CommentEnricher.SENTIMENT_PROPERTY)).floatValue(), 0);
+  }
+
+  @Test
+  public void failuresAreRetriedBeforeGivingUp() throws Exception {
+    Key key = putComment("hello").getKey();
+    servicesDown = true;
+
+    for (int attempt = 1; attempt < CommentEnricher.MAX_ATTEMPTS; attempt++) {
+      Assert.assertFalse(enricher.enrich(Collections.singletonList(key)));
+      Assert.assertEquals(CommentEnricher.PENDING, status(key));
+    }
+    Assert.assertTrue(enricher.enrich(Collections.singletonList(key)));
+    Assert.assertEquals(CommentEnricher.FAILED, status(key));
+  }
+
+  @Test
+  public void commentIsEnrichedOnceServicesRecover() throws Exception {
+    Key key = putComment("hello").getKey();
+    servicesDown = true;
+    Assert.assertFalse(enricher.enrich(Collections.singletonList(key)));
+
+    servicesDown = false;
+    Assert.assertTrue(enricher.enrich(Collections.singletonList(key)));
+    Assert.assertEquals(CommentEnricher.DONE, status(key));
+  }
+
+  @Test
+  public void deletedCommentIsNotRecreated() {
+    Key key = putComment("hello").getKey();
+    datastore.delete(key);
+
+    Assert.assertTrue(enricher.enrich(Collections.singletonList(key)));
+    try {
+      datastore.get(key);
+      Assert.fail("Expected the deleted comment to stay deleted");
+    } catch (EntityNotFoundException e) {
+      // Expected.
+    }
+  }
+
+  @Test
+  public void rescanQueuesCommentsWithoutTasks() {
+    // Comments whose task could not be added, in more than one batch.
+    for (int k = 0; k < BATCH_SIZE + 5; k++) {
+      putComment("lost " + k);
+    }
+    // A comment that was queued a moment ago still has its task.
+    Entity queued = putComment("queued");
+    queued.setProperty(CommentEnricher.QUEUED_PROPERTY, System.currentTimeMillis());
+    datastore.put(queued);
+
+    Assert.assertEquals(BATCH_SIZE + 5, enricher.submitPending());
+    Assert.assertEquals(2, queuedTasks());
+
+    // Every comment now has a task, so a second rescan has nothing to do.
+    Assert.assertEquals(0, enricher.submitPending());
+    Assert.assertEquals(2, queuedTasks());
+  }
+
+  private Entity putComment(String text) {
+    Entity comment = new Entity("Comments");
+    comment.setProperty("commentInstance", text);
+    comment.setUnindexedProperty(CommentEnricher.TEXT_PROPERTY, text);
+    comment.setProperty(CommentEnricher.STATUS_PROPERTY, CommentEnricher.PENDING);
+    datastore.put(comment);
+    return comment;
+  }
+
+  private Object status(Key key) throws EntityNotFoundException {
+    return datastore.get(key).getProperty(CommentEnricher.STATUS_PROPERTY);
+  }
+
+  private static int queuedTasks() {
+    QueueStateInfo queue =
+        LocalTaskQueueTestConfig.getLocalTaskQueue().getQueueStateInfo().get(QUEUE_NAME);
+    return queue.getTaskInfo().size();
+  }
+}
@@ -0,0 +1,112 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps.enrichment;
+
+import com.google.appengine.api.datastore.DatastoreService;
+import com.google.appengine.api.datastore.DatastoreServiceFactory;
+import com.google.appengine.api.datastore.Entity;
+import com.google.appengine.api.datastore.FetchOptions;
+import com.google.appengine.api.datastore.KeyFactory;
+import com.google.appengine.api.datastore.Query;
+import com.google.appengine.tools.development.testing.LocalDatastoreServiceTestConfig;
+import com.google.appengine.tools.development.testing.LocalServiceTestHelper;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class EnrichmentCacheTest {
+  private static final long ONE_HOUR = 60 * 60 * 1000;
+
+  private final LocalServiceTestHelper helper =
+      new LocalServiceTestHelper(new LocalDatastoreServiceTestConfig());
+  private DatastoreService datastore;
+
+  @Before
+  public void setUp() {
+    helper.setUp();
+    datastore = DatastoreServiceFactory.getDatastoreService();
+  }
+
+  @After
+  public void tearDown() {
+    helper.tearDown();
+  }
+
+  @Test
+  public void savedEntriesSurviveRestart() {
+    new EnrichmentCache(10, ONE_HOUR, datastore).putAll(Collections.singletonMap("a", "hello"));
+
+    Map<String, Object> found =
+        new EnrichmentCache(10, ONE_HOUR, datastore).getAll(Arrays.asList("a", "b"));
+
+    Assert.assertEquals(Collections.singletonMap("a", "hello"), found);
+  }
+
+  @Test
+  public void expiredEntryIsDeletedWhenRead() {
+    saveExpired("a");
+
+    Map<String, Object> found =
+        new EnrichmentCache(10, ONE_HOUR, datastore).getAll(Arrays.asList("a"));
+
+    Assert.assertTrue(found.isEmpty());
+    Assert.assertEquals(0, countSaved());
+  }
+
+  @Test
+  public void trimDeletesExpiredEntries() {
+    for (int k = 0; k < 1200; k++) {
+      saveExpired("expired " + k);
+    }
+    EnrichmentCache cache = new EnrichmentCache(10, ONE_HOUR, datastore);
+    cache.putAll(Collections.singletonMap("fresh", "hello"));
+
+    // Storing an entry already ran a trim, so there is nothing left for another one.
+    Assert.assertEquals(0, cache.trim());
+    Assert.assertEquals(1, countSaved());
+  }
+
+  @Test
+  public void repeatedKeysAreCountedEachTime() {
+    EnrichmentCache cache = new EnrichmentCache(10, ONE_HOUR, null);
+    cache.putAll(Collections.singletonMap("a", "hello"));
+
+    cache.getAll(Arrays.asList("a", "a", "b", "b", "b"));
+
+    Assert.assertEquals(2, cache.hits());
+    Assert.assertEquals(3, cache.misses());
+  }
+
+  private void saveExpired(String key) {
+    Entity entity = new Entity(KeyFactory.createKey(EnrichmentCache.KIND, key));
+    entity.setUnindexedProperty("value", "stale");
+    entity.setProperty("expires", System.currentTimeMillis() - 1);
+    datastore.put(entity);
+  }
+
+  private int countSaved() {
+    return datastore.prepare(new Query(EnrichmentCache.KIND).setKeysOnly())
+        .countEntities(FetchOptions.Builder.withDefaults());
+  }
+}
@@ -0,0 +1,136 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.appengine.api.datastore.DatastoreService;
+import com.google.appengine.api.datastore.DatastoreServiceFactory;
+import com.google.appengine.api.datastore.Entity;
+import com.google.appengine.api.datastore.FetchOptions;
+import com.google.appengine.api.datastore.Query;
+import com.google.appengine.api.taskqueue.Queue;
+import com.google.appengine.api.taskqueue.QueueFactory;
+import com.google.appengine.api.taskqueue.dev.QueueStateInfo.TaskStateInfo;
+import com.google.appengine.tools.development.testing.LocalDatastoreServiceTestConfig;
+import com.google.appengine.tools.development.testing.LocalServiceTestHelper;
+import com.google.appengine.tools.development.testing.LocalTaskQueueTestConfig;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.util.List;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class PurgeTaskServletTest {
+  private final LocalServiceTestHelper helper = new LocalServiceTestHelper(
+      new LocalDatastoreServiceTestConfig(),
+      new LocalTaskQueueTestConfig().setQueueXmlPath("src/main/webapp/WEB-INF/queue.xml"));
+
+  private DatastoreService datastore;
+  private Queue queue;
+
+  @Before
+  public void setUp() {
+    helper.setUp();
+    datastore = DatastoreServiceFactory.getDatastoreService();
+    queue = QueueFactory.getQueue(PurgeTaskServlet.QUEUE_NAME);
+  }
+
+  @After
+  public void tearDown() {
+    helper.tearDown();
+  }
+
+  @Test
+  public void eachBatchQueuesTheNext() throws Exception {
+    putComments(1200);
+    startJob();
+
+    PurgeTaskServlet.deleteBatch(datastore, queue, null);
+    String second = queuedCursor(0);
+    PurgeTaskServlet.deleteBatch(datastore, queue, second);
+    PurgeTaskServlet.deleteBatch(datastore, queue, queuedCursor(1));
+
+    Entity job = DeleteServlet.loadJob(datastore, null);
+    Assert.assertEquals(DeleteServlet.DONE, job.getProperty("state"));
+    Assert.assertEquals(1200L, job.getProperty("deleted"));
+    Assert.assertEquals(0, countComments());
+    // The last batch was short, so nothing more was queued.
+    Assert.assertEquals(2, queuedTasks().size());
+  }
+
+  @Test
+  public void duplicateTaskDoesNothing() throws Exception {
+    putComments(600);
+    startJob();
+
+    PurgeTaskServlet.deleteBatch(datastore, queue, null);
+    // A retry of the first task, after its batch was already saved.
+    PurgeTaskServlet.deleteBatch(datastore, queue, null);
+
+    Entity job = DeleteServlet.loadJob(datastore, null);
+    Assert.assertEquals(DeleteServlet.RUNNING, job.getProperty("state"));
+    Assert.assertEquals(500L, job.getProperty("deleted"));
+    Assert.assertEquals(1, queuedTasks().size());
+  }
+
+  @Test
+  public void taskForStoppedJobDoesNothing() {
+    putComments(10);
+    Entity job = startJob();
+    job.setProperty("state", DeleteServlet.FAILED);
+    datastore.put(job);
+
+    PurgeTaskServlet.deleteBatch(datastore, queue, null);
+
+    Assert.assertEquals(10, countComments());
+  }
+
+  private Entity startJob() {
+    Entity job = new Entity(DeleteServlet.JOB_KEY);
+    job.setProperty("deleted", 0L);
+    job.setProperty("state", DeleteServlet.RUNNING);
+    datastore.put(job);
+    return job;
+  }
+
+  private void putComments(int count) {
+    for (int k = 0; k < count; k++) {
+      Entity comment = new Entity("Comments");
+      comment.setProperty("commentInstance", "comment " + k);
+      datastore.put(comment);
+    }
+  }
+
+  private int countComments() {
+    return datastore.prepare(new Query("Comments").setKeysOnly())
+        .countEntities(FetchOptions.Builder.withDefaults());
+  }
+
+  private static List<TaskStateInfo> queuedTasks() {
+    return LocalTaskQueueTestConfig.getLocalTaskQueue().getQueueStateInfo()
+        .get(PurgeTaskServlet.QUEUE_NAME).getTaskInfo();
+  }
+
+  /** Returns the cursor that the {@code index}th queued task starts from. */
+  private static String queuedCursor(int index) throws UnsupportedEncodingException {
+    String body = queuedTasks().get(index).getBody();
+    return URLDecoder.decode(body.substring(body.indexOf('=') + 1), "UTF-8");
+  }
+}
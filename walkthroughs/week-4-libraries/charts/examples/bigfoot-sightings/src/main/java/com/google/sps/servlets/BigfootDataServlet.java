@@ -27,10 +27,12 @@ import javax.servlet.http.HttpServletResponse;
 @WebServlet("/bigfoot-data")
 public class BigfootDataServlet extends HttpServlet {
 
-  private LinkedHashMap<Integer, Integer> bigfootSightings = new LinkedHashMap<>();
+  // The data never changes, so the JSON is built once and the same bytes are sent every time.
+  private JsonSnapshot snapshot;
 
   @Override
   public void init() {
+    LinkedHashMap<Integer, Integer> bigfootSightings = new LinkedHashMap<>();
     Scanner scanner = new Scanner(getServletContext().getResourceAsStream(
         "/WEB-INF/bigfoot-sightings-by-year.csv"));
     while (scanner.hasNextLine()) {
@@ -43,13 +45,13 @@ public class BigfootDataServlet extends HttpServlet {
       bigfootSightings.put(year, sightings);
     }
     scanner.close();
+
+    Gson gson = new Gson();
+    snapshot = new JsonSnapshot(gson.toJson(bigfootSightings));
   }
 
   @Override
   public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
-    response.setContentType("application/json");
-    Gson gson = new Gson();
-    String json = gson.toJson(bigfootSightings);
-    response.getWriter().println(json);
+    snapshot.send(request, response);
   }
 }
@@ -0,0 +1,106 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Geohash encodes a lat lng point as a short base 32 string. Each character narrows the area down
+ * by 32, so points in the same area share a prefix and an area can be found with a range query on
+ * the string.
+ */
+public final class Geohash {
+  /** The number of characters stored for each marker, about 1 meter across. */
+  public static final int PRECISION = 9;
+
+  private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+
+  private Geohash() {
+    // Disallow instances.
+  }
+
+  /** Returns the geohash of a point with {@code precision} characters. */
+  public static String encode(double lat, double lng, int precision) {
+    int lngBits = lngBits(precision);
+    int latBits = 5 * precision - lngBits;
+    return encodeCell(cell(lng + 180, 360, lngBits), cell(lat + 90, 180, latBits), precision);
+  }
+
+  /**
+   * Returns geohash prefixes whose areas together cover the given box. The prefixes are as long as
+   * possible while there are no more than {@code maxPrefixes} of them. An empty list means the box
+   * is too large to narrow down at all. The box must not cross the antimeridian.
+   */
+  public static List<String> coveringPrefixes(
+      double south, double west, double north, double east, int maxPrefixes) {
+    List<String> prefixes = new ArrayList<>();
+    for (int precision = PRECISION; precision >= 1; precision--) {
+      int lngBits = lngBits(precision);
+      int latBits = 5 * precision - lngBits;
+      long left = cell(west + 180, 360, lngBits);
+      long right = cell(east + 180, 360, lngBits);
+      long bottom = cell(south + 90, 180, latBits);
+      long top = cell(north + 90, 180, latBits);
+      if ((right - left + 1) * (top - bottom + 1) > maxPrefixes) {
+        continue;
+      }
+
+      for (long y = bottom; y <= top; y++) {
+        for (long x = left; x <= right; x++) {
+          prefixes.add(encodeCell(x, y, precision));
+        }
+      }
+      return prefixes;
+    }
+    return prefixes;
+  }
+
+  /** Returns the first string after every string that starts with {@code prefix}. */
+  public static String prefixEnd(String prefix) {
+    // '~' sorts after every base 32 character.
+    return prefix + "~";
+  }
+
+  private static int lngBits(int precision) {
+    // Bits alternate between longitude and latitude, starting with longitude.
+    return (5 * precision + 1) / 2;
+  }
+
+  /** Returns the cell, out of {@code 2^bits} cells of {@code [0, range]}, holding {@code value}. */
+  private static long cell(double value, double range, int bits) {
+    long cells = 1L << bits;
+    return Math.max(0, Math.min(cells - 1, (long) Math.floor(value / range * cells)));
+  }
+
+  private static String encodeCell(long x, long y, int precision) {
+    int lngBits = lngBits(precision);
+    int latBits = 5 * precision - lngBits;
+    char[] hash = new char[precision];
+    int lngBit = lngBits - 1;
+    int latBit = latBits - 1;
+    for (int k = 0; k < precision; k++) {
+      int value = 0;
+      for (int bit = 0; bit < 5; bit++) {
+        // Even bits of the whole hash come from the longitude, odd bits from the latitude.
+        boolean fromLng = (k * 5 + bit) % 2 == 0;
+        long source = fromLng ? (x >> lngBit--) & 1 : (y >> latBit--) & 1;
+        value = value << 1 | (int) source;
+      }
+      hash[k] = BASE32[value];
+    }
+    return new String(hash);
+  }
+}
@@ -0,0 +1,196 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * MarkerCache keeps recently seen markers in an R-tree, along with the geohash areas whose
+ * markers have all been loaded from Datastore. Views inside loaded areas are answered from memory.
+ * Areas count as loaded for a limited time, so that markers stored by other server instances
+ * show up eventually.
+ *
+ * <p>A search reads the loaded areas of a view from memory in one step and takes the rest
+ * straight from its loader, so its answer never depends on what the cache still holds afterwards.
+ * When a newly loaded area does not fit, the cache starts over; an area with more markers than
+ * the cache can hold is never marked loaded and is read from the loader every time.
+ *
+ * @param <K> The type of the keys that markers are stored under.
+ */
+public final class MarkerCache<K> {
+  /** Reads every stored marker in the area of a geohash prefix, by key. */
+  public interface AreaLoader<K> {
+    Map<K, Marker> load(String prefix);
+  }
+
+  private final int maxMarkers;
+  private final long ttlMillis;
+  private final Set<K> keys = new HashSet<>();
+  private final Map<String, Long> loadedAreas = new HashMap<>();
+  private RTree<Entry> markers = new RTree<>();
+  // Bumped by every add. A search only marks an area loaded if no marker was added while it was
+  // loading, since the loader may have missed that marker and the cache may have dropped it.
+  private long generation;
+
+  /**
+   * Creates an empty cache.
+   *
+   * @param maxMarkers The most markers held at once.
+   * @param ttlMillis How long an area stays loaded.
+   */
+  public MarkerCache(int maxMarkers, long ttlMillis) {
+    this.maxMarkers = maxMarkers;
+    this.ttlMillis = ttlMillis;
+  }
+
+  /**
+   * Returns every marker inside the box. The box is split into at most {@code maxAreas} geohash
+   * areas; the ones that are loaded are answered from memory, and the others are read with
+   * {@code loader} and then cached if they fit. The box must not cross the antimeridian.
+   */
+  public List<Marker> search(double south, double west, double north, double east, int maxAreas,
+      AreaLoader<K> loader) {
+    List<String> prefixes = Geohash.coveringPrefixes(south, west, north, east, maxAreas);
+    if (prefixes.isEmpty()) {
+      // The box is too large to split, so it is treated as one area covering the whole world.
+      prefixes = Collections.singletonList("");
+    }
+    int length = prefixes.get(0).length();
+
+    List<Marker> found = new ArrayList<>();
+    List<String> missing = new ArrayList<>();
+    long started;
+    synchronized (this) {
+      started = generation;
+      Set<String> loaded = new HashSet<>();
+      for (String prefix : prefixes) {
+        if (isLoaded(prefix)) {
+          loaded.add(prefix);
+        } else {
+          missing.add(prefix);
+        }
+      }
+      if (!loaded.isEmpty()) {
+        markers.search(west, south, east, north, entry -> {
+          // Markers of the missing areas may be cached too, but they come from the loader below.
+          if (loaded.contains(entry.geohash.substring(0, length))) {
+            found.add(entry.marker);
+          }
+        });
+      }
+    }
+
+    for (String prefix : missing) {
+      Map<K, Marker> area = loader.load(prefix);
+      for (Marker marker : area.values()) {
+        if (marker.getLat() >= south && marker.getLat() <= north
+            && marker.getLng() >= west && marker.getLng() <= east) {
+          found.add(marker);
+        }
+      }
+      addArea(prefix, area, started);
+    }
+    return found;
+  }
+
+  /**
+   * Adds a marker that was just stored under {@code key}, unless it is already cached. If the
+   * cache is full, the areas holding the marker are no longer treated as loaded instead.
+   */
+  public synchronized void add(K key, Marker marker) {
+    if (keys.contains(key)) {
+      return;
+    }
+    generation++;
+    String geohash = Geohash.encode(marker.getLat(), marker.getLng(), Geohash.PRECISION);
+    if (keys.size() >= maxMarkers) {
+      for (int length = geohash.length(); length >= 0; length--) {
+        loadedAreas.remove(geohash.substring(0, length));
+      }
+      return;
+    }
+    insert(key, marker, geohash);
+  }
+
+  /**
+   * Returns whether every marker in the area of {@code prefix} has been loaded recently, either
+   * for that area or for a larger one that contains it.
+   */
+  private boolean isLoaded(String prefix) {
+    long oldest = System.currentTimeMillis() - ttlMillis;
+    for (int length = prefix.length(); length >= 0; length--) {
+      Long loaded = loadedAreas.get(prefix.substring(0, length));
+      if (loaded != null && loaded > oldest) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Caches every marker of the area of {@code prefix} and marks it loaded, if they fit and no
+   * marker has been added since generation {@code started}, when the area started loading.
+   */
+  private synchronized void addArea(String prefix, Map<K, Marker> area, long started) {
+    int added = 0;
+    for (K key : area.keySet()) {
+      if (!keys.contains(key)) {
+        added++;
+      }
+    }
+    if (keys.size() + added > maxMarkers) {
+      // Start over rather than track which areas were used least recently.
+      keys.clear();
+      loadedAreas.clear();
+      markers = new RTree<>();
+      if (area.size() > maxMarkers) {
+        return;
+      }
+    }
+
+    for (Map.Entry<K, Marker> entry : area.entrySet()) {
+      if (!keys.contains(entry.getKey())) {
+        Marker marker = entry.getValue();
+        insert(entry.getKey(), marker,
+            Geohash.encode(marker.getLat(), marker.getLng(), Geohash.PRECISION));
+      }
+    }
+    if (generation == started) {
+      loadedAreas.put(prefix, System.currentTimeMillis());
+    }
+  }
+
+  private void insert(K key, Marker marker, String geohash) {
+    keys.add(key);
+    markers.insert(marker.getLng(), marker.getLat(), new Entry(marker, geohash));
+  }
+
+  private static final class Entry {
+    final Marker marker;
+    final String geohash;
+
+    Entry(Marker marker, String geohash) {
+      this.marker = marker;
+      this.geohash = geohash;
+    }
+  }
+}
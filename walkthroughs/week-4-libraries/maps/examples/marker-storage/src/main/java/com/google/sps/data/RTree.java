@@ -0,0 +1,240 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * RTree is a small in-memory R-tree of points. Every node knows the bounding box of everything
+ * below it, so a box search only visits the nodes that overlap the box. Nodes split with the
+ * linear split of Guttman's original R-tree when they fill up.
+ */
+public final class RTree<T> {
+  private static final int MAX_ENTRIES = 16;
+  private static final int MIN_ENTRIES = 4;
+
+  private Node<T> root = new Node<>(true);
+  private int size;
+
+  /** Adds {@code value} at point {@code (x, y)}. */
+  public void insert(double x, double y, T value) {
+    Node<T> entry = new Node<>(x, y, value);
+
+    // Walk down to the leaf whose box grows the least, remembering the path.
+    List<Node<T>> path = new ArrayList<>();
+    Node<T> node = root;
+    path.add(node);
+    while (!node.leaf) {
+      node = chooseChild(node, entry);
+      path.add(node);
+    }
+    node.add(entry);
+    size++;
+
+    // Split full nodes and grow the boxes on the way back up.
+    for (int depth = path.size() - 1; depth >= 0; depth--) {
+      Node<T> current = path.get(depth);
+      current.include(entry);
+      if (current.children.size() <= MAX_ENTRIES) {
+        continue;
+      }
+      Node<T> sibling = split(current);
+      if (depth == 0) {
+        Node<T> newRoot = new Node<>(false);
+        newRoot.add(current);
+        newRoot.add(sibling);
+        root = newRoot;
+      } else {
+        path.get(depth - 1).add(sibling);
+      }
+    }
+  }
+
+  /** Passes every value inside the box, edges included, to {@code visitor}. */
+  public void search(double minX, double minY, double maxX, double maxY, Consumer<T> visitor) {
+    if (size > 0) {
+      search(root, minX, minY, maxX, maxY, visitor);
+    }
+  }
+
+  /** Returns the number of values in the tree. */
+  public int size() {
+    return size;
+  }
+
+  private static <T> void search(Node<T> node, double minX, double minY, double maxX,
+      double maxY, Consumer<T> visitor) {
+    for (Node<T> child : node.children) {
+      if (child.minX > maxX || child.maxX < minX || child.minY > maxY || child.maxY < minY) {
+        continue;
+      }
+      if (child.value != null) {
+        visitor.accept(child.value);
+      } else {
+        search(child, minX, minY, maxX, maxY, visitor);
+      }
+    }
+  }
+
+  private static <T> Node<T> chooseChild(Node<T> node, Node<T> entry) {
+    Node<T> best = null;
+    double bestGrowth = Double.POSITIVE_INFINITY;
+    for (Node<T> child : node.children) {
+      double growth = child.areaWith(entry) - child.area();
+      if (growth < bestGrowth || (growth == bestGrowth && child.area() < best.area())) {
+        best = child;
+        bestGrowth = growth;
+      }
+    }
+    return best;
+  }
+
+  /** Moves about half of {@code node}'s children to a new sibling node, which is returned. */
+  private static <T> Node<T> split(Node<T> node) {
+    List<Node<T>> children = node.children;
+
+    // Seed the two groups with the children that are the furthest apart along either axis,
+    // relative to the width of the whole node along that axis.
+    int[] seeds = farthestPair(children, true);
+    int[] ySeeds = farthestPair(children, false);
+    if (separation(children, ySeeds, false) > separation(children, seeds, true)) {
+      seeds = ySeeds;
+    }
+
+    Node<T> first = new Node<>(node.leaf);
+    Node<T> second = new Node<>(node.leaf);
+    first.add(children.get(seeds[0]));
+    second.add(children.get(seeds[1]));
+
+    int remaining = children.size() - 2;
+    for (int k = 0; k < children.size(); k++) {
+      if (k == seeds[0] || k == seeds[1]) {
+        continue;
+      }
+      Node<T> child = children.get(k);
+      // Make sure that both groups end up with at least the minimum number of entries.
+      if (first.children.size() + remaining == MIN_ENTRIES) {
+        first.add(child);
+      } else if (second.children.size() + remaining == MIN_ENTRIES) {
+        second.add(child);
+      } else if (first.areaWith(child) - first.area() <= second.areaWith(child) - second.area()) {
+        first.add(child);
+      } else {
+        second.add(child);
+      }
+      remaining--;
+    }
+
+    node.children = first.children;
+    node.setBounds(first);
+    return second;
+  }
+
+  private static <T> int[] farthestPair(List<Node<T>> children, boolean alongX) {
+    int highestLow = 0;
+    int lowestHigh = 0;
+    for (int k = 1; k < children.size(); k++) {
+      if (low(children.get(k), alongX) > low(children.get(highestLow), alongX)) {
+        highestLow = k;
+      }
+      if (high(children.get(k), alongX) < high(children.get(lowestHigh), alongX)) {
+        lowestHigh = k;
+      }
+    }
+    if (highestLow == lowestHigh) {
+      // Every child covers the same span; any two will do.
+      return new int[] {0, highestLow == 0 ? 1 : 0};
+    }
+    return new int[] {lowestHigh, highestLow};
+  }
+
+  private static <T> double separation(List<Node<T>> children, int[] pair, boolean alongX) {
+    double min = Double.POSITIVE_INFINITY;
+    double max = Double.NEGATIVE_INFINITY;
+    for (Node<T> child : children) {
+      min = Math.min(min, low(child, alongX));
+      max = Math.max(max, high(child, alongX));
+    }
+    double width = max - min;
+    double gap = low(children.get(pair[1]), alongX) - high(children.get(pair[0]), alongX);
+    return width > 0 ? gap / width : 0;
+  }
+
+  private static double low(Node<?> node, boolean alongX) {
+    return alongX ? node.minX : node.minY;
+  }
+
+  private static double high(Node<?> node, boolean alongX) {
+    return alongX ? node.maxX : node.maxY;
+  }
+
+  /** An inner node, a leaf, or a point entry when {@code value} is set. */
+  private static final class Node<T> {
+    final boolean leaf;
+    final T value;
+    List<Node<T>> children = new ArrayList<>();
+    double minX = Double.POSITIVE_INFINITY;
+    double minY = Double.POSITIVE_INFINITY;
+    double maxX = Double.NEGATIVE_INFINITY;
+    double maxY = Double.NEGATIVE_INFINITY;
+
+    Node(boolean leaf) {
+      this.leaf = leaf;
+      this.value = null;
+    }
+
+    Node(double x, double y, T value) {
+      this.leaf = false;
+      this.value = value;
+      this.minX = x;
+      this.maxX = x;
+      this.minY = y;
+      this.maxY = y;
+    }
+
+    void add(Node<T> child) {
+      children.add(child);
+      include(child);
+    }
+
+    void include(Node<T> other) {
+      minX = Math.min(minX, other.minX);
+      minY = Math.min(minY, other.minY);
+      maxX = Math.max(maxX, other.maxX);
+      maxY = Math.max(maxY, other.maxY);
+    }
+
+    void setBounds(Node<T> other) {
+      minX = other.minX;
+      minY = other.minY;
+      maxX = other.maxX;
+      maxY = other.maxY;
+    }
+
+    double area() {
+      return children.isEmpty() && value == null ? 0 : (maxX - minX) * (maxY - minY);
+    }
+
+    double areaWith(Node<T> other) {
+      if (children.isEmpty() && value == null) {
+        return 0;
+      }
+      return (Math.max(maxX, other.maxX) - Math.min(minX, other.minX))
+          * (Math.max(maxY, other.maxY) - Math.min(minY, other.minY));
+    }
+  }
+}
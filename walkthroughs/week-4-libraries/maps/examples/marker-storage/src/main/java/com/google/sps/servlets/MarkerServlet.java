@@ -17,13 +17,25 @@ package com.google.sps.servlets;
 import com.google.appengine.api.datastore.DatastoreService;
 import com.google.appengine.api.datastore.DatastoreServiceFactory;
 import com.google.appengine.api.datastore.Entity;
+import com.google.appengine.api.datastore.EntityNotFoundException;
+import com.google.appengine.api.datastore.Key;
+import com.google.appengine.api.datastore.KeyFactory;
 import com.google.appengine.api.datastore.PreparedQuery;
 import com.google.appengine.api.datastore.Query;
+import com.google.appengine.api.datastore.Query.CompositeFilterOperator;
+import com.google.appengine.api.datastore.Query.FilterOperator;
+import com.google.appengine.api.datastore.Query.FilterPredicate;
+import com.google.sps.data.Geohash;
 import com.google.sps.data.Marker;
+import com.google.sps.data.MarkerCache;
 import com.google.gson.Gson;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
@@ -31,16 +43,60 @@ import javax.servlet.http.HttpServletResponse;
 import org.jsoup.Jsoup;
 import org.jsoup.safety.Whitelist;
 
-/** Handles fetching and saving markers data. */
+/**
+ * Handles fetching and saving markers data. Markers are stored with a geohash, so the markers in
+ * a map view are found with a few range queries on it and then kept in an in-memory cache.
+ */
 @WebServlet("/markers")
 public class MarkerServlet extends HttpServlet {
 
-  /** Responds with a JSON array containing marker data. */
+  // The most geohash areas a view is split into; each one is a separate Datastore query.
+  private static final int MAX_AREAS_PER_VIEW = 32;
+
+  // The most markers the cache holds, and how long before it reloads an area.
+  private static final int MAX_CACHED_MARKERS = 50000;
+  private static final long CACHE_TTL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+  // Saved once every marker stored before geohashes were added has been given one.
+  private static final Key BACKFILL_KEY = KeyFactory.createKey("MarkerGeohashBackfill", "done");
+  private static final int BACKFILL_BATCH_SIZE = 500;
+
+  private final MarkerCache<Key> cache = new MarkerCache<>(MAX_CACHED_MARKERS, CACHE_TTL_MILLIS);
+
+  @Override
+  public void init() {
+    backfillGeohashes();
+  }
+
+  /**
+   * Responds with a JSON array containing marker data. Given a map view as north, south, east and
+   * west parameters, only the markers in that view are returned.
+   */
   @Override
   public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
-    response.setContentType("application/json");
+    Collection<Marker> markers;
+    String south = request.getParameter("south");
+    String west = request.getParameter("west");
+    String north = request.getParameter("north");
+    String east = request.getParameter("east");
+    if (north == null) {
+      markers = getMarkers();
+    } else if (south == null || west == null || east == null) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST,
+          "A north parameter needs south, east and west parameters too");
+      return;
+    } else {
+      try {
+        markers = getMarkers(Double.parseDouble(south), Double.parseDouble(west),
+            Double.parseDouble(north), Double.parseDouble(east));
+      } catch (NumberFormatException e) {
+        response.sendError(HttpServletResponse.SC_BAD_REQUEST,
+            "Expected numeric north, south, east and west parameters");
+        return;
+      }
+    }
 
-    Collection<Marker> markers = getMarkers();
+    response.setContentType("application/json");
     Gson gson = new Gson();
     String json = gson.toJson(markers);
 
@@ -58,7 +114,7 @@ public class MarkerServlet extends HttpServlet {
     storeMarker(marker);
   }
 
-  /** Fetches markers from Datastore. */
+  /** Fetches every marker from Datastore. */
   private Collection<Marker> getMarkers() {
     Collection<Marker> markers = new ArrayList<>();
 
@@ -67,24 +123,86 @@ public class MarkerServlet extends HttpServlet {
     PreparedQuery results = datastore.prepare(query);
 
     for (Entity entity : results.asIterable()) {
-      double lat = (double) entity.getProperty("lat");
-      double lng = (double) entity.getProperty("lng");
-      String content = (String) entity.getProperty("content");
+      markers.add(toMarker(entity));
+    }
+    return markers;
+  }
+
+  /** Fetches the markers inside a map view, from the cache where it can. */
+  private Collection<Marker> getMarkers(double south, double west, double north, double east) {
+    if (west <= east) {
+      return getMarkersInBox(south, west, north, east);
+    }
+    // The view crosses the antimeridian, so look on both sides of it.
+    Collection<Marker> markers = getMarkersInBox(south, west, north, 180);
+    markers.addAll(getMarkersInBox(south, -180, north, east));
+    return markers;
+  }
 
-      Marker marker = new Marker(lat, lng, content);
-      markers.add(marker);
+  private Collection<Marker> getMarkersInBox(
+      double south, double west, double north, double east) {
+    return cache.search(south, west, north, east, MAX_AREAS_PER_VIEW, MarkerServlet::loadArea);
+  }
+
+  /** Reads every marker in the area of a geohash prefix with a range query. */
+  private static Map<Key, Marker> loadArea(String prefix) {
+    DatastoreService datastore = DatastoreServiceFactory.getDatastoreService();
+    Query query = new Query("Marker").setFilter(CompositeFilterOperator.and(
+        new FilterPredicate("geohash", FilterOperator.GREATER_THAN_OR_EQUAL, prefix),
+        new FilterPredicate("geohash", FilterOperator.LESS_THAN, Geohash.prefixEnd(prefix))));
+    Map<Key, Marker> markers = new LinkedHashMap<>();
+    for (Entity entity : datastore.prepare(query).asIterable()) {
+      markers.put(entity.getKey(), toMarker(entity));
     }
     return markers;
   }
 
+  private static Marker toMarker(Entity entity) {
+    double lat = (double) entity.getProperty("lat");
+    double lng = (double) entity.getProperty("lng");
+    String content = (String) entity.getProperty("content");
+    return new Marker(lat, lng, content);
+  }
+
   /** Stores a marker in Datastore. */
   public void storeMarker(Marker marker) {
     Entity markerEntity = new Entity("Marker");
     markerEntity.setProperty("lat", marker.getLat());
     markerEntity.setProperty("lng", marker.getLng());
     markerEntity.setProperty("content", marker.getContent());
+    markerEntity.setProperty(
+        "geohash", Geohash.encode(marker.getLat(), marker.getLng(), Geohash.PRECISION));
 
     DatastoreService datastore = DatastoreServiceFactory.getDatastoreService();
     datastore.put(markerEntity);
+    cache.add(markerEntity.getKey(), marker);
+  }
+
+  /** Gives a geohash to every marker that was stored without one. */
+  private void backfillGeohashes() {
+    DatastoreService datastore = DatastoreServiceFactory.getDatastoreService();
+    try {
+      datastore.get(BACKFILL_KEY);
+      return;
+    } catch (EntityNotFoundException e) {
+      // Not done yet.
+    }
+
+    List<Entity> batch = new ArrayList<>(BACKFILL_BATCH_SIZE);
+    for (Entity entity : datastore.prepare(new Query("Marker")).asIterable()) {
+      if (entity.hasProperty("geohash")) {
+        continue;
+      }
+      Marker marker = toMarker(entity);
+      entity.setProperty(
+          "geohash", Geohash.encode(marker.getLat(), marker.getLng(), Geohash.PRECISION));
+      batch.add(entity);
+      if (batch.size() == BACKFILL_BATCH_SIZE) {
+        datastore.put(batch);
+        batch.clear();
+      }
+    }
+    datastore.put(batch);
+    datastore.put(new Entity(BACKFILL_KEY));
   }
 }
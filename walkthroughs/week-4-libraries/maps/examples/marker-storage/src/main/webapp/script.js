@@ -29,22 +29,57 @@ function createMap() {
     createMarkerForEdit(event.latLng.lat(), event.latLng.lng());
   });
 
-  fetchMarkers();
+  // Load the markers of the current view whenever the user stops panning or zooming.
+  map.addListener('idle', fetchMarkers);
 }
 
-/** Fetches markers from the backend and adds them to the map. */
+/* Markers currently shown for the view. */
+let displayedMarkers = [];
+
+/*
+ * The request for the current view. Moving the map again cancels it, so that a slow response for
+ * an old view cannot replace the markers of a newer one.
+ */
+let markersRequest = null;
+
+/** Fetches the markers in the current view from the backend and shows them on the map. */
 function fetchMarkers() {
-  fetch('/markers').then(response => response.json()).then((markers) => {
-    markers.forEach(
-        (marker) => {
-            createMarkerForDisplay(marker.lat, marker.lng, marker.content)});
+  const bounds = map.getBounds();
+  const params = new URLSearchParams({
+    north: bounds.getNorthEast().lat(),
+    east: bounds.getNorthEast().lng(),
+    south: bounds.getSouthWest().lat(),
+    west: bounds.getSouthWest().lng(),
   });
+  if (markersRequest) {
+    markersRequest.abort();
+  }
+  const controller = new AbortController();
+  markersRequest = controller;
+  fetch('/markers?' + params, {signal: controller.signal})
+      .then(response => response.json())
+      .then((markers) => {
+        if (controller.signal.aborted) {
+          return;
+        }
+        displayedMarkers.forEach((marker) => marker.setMap(null));
+        displayedMarkers = [];
+        markers.forEach(
+            (marker) => {
+                createMarkerForDisplay(marker.lat, marker.lng, marker.content)});
+      })
+      .catch((error) => {
+        if (error.name !== 'AbortError') {
+          throw error;
+        }
+      });
 }
 
 /** Creates a marker that shows a read-only info window when clicked. */
 function createMarkerForDisplay(lat, lng, content) {
   const marker =
       new google.maps.Marker({position: {lat: lat, lng: lng}, map: map});
+  displayedMarkers.push(marker);
 
   const infoWindow = new google.maps.InfoWindow({content: content});
   marker.addListener('click', () => {
@@ -0,0 +1,126 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps.data;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class MarkerCacheTest {
+  private static final long ONE_MINUTE = 60 * 1000;
+  private static final int MAX_AREAS = 32;
+
+  // A small view around a few markers near Mountain View.
+  private static final double SOUTH = 37.40;
+  private static final double WEST = -122.10;
+  private static final double NORTH = 37.41;
+  private static final double EAST = -122.09;
+
+  private final Map<Long, Marker> stored = new LinkedHashMap<>();
+  private int loads;
+
+  private final MarkerCache.AreaLoader<Long> loader = prefix -> {
+    loads++;
+    Map<Long, Marker> area = new LinkedHashMap<>();
+    for (Map.Entry<Long, Marker> entry : stored.entrySet()) {
+      Marker marker = entry.getValue();
+      if (Geohash.encode(marker.getLat(), marker.getLng(), Geohash.PRECISION)
+          .startsWith(prefix)) {
+        area.put(entry.getKey(), marker);
+      }
+    }
+    return area;
+  };
+
+  @Test
+  public void areaLargerThanCacheIsReturnedInFull() {
+    storeMarkers(25);
+    MarkerCache<Long> cache = new MarkerCache<>(10, ONE_MINUTE);
+
+    Assert.assertEquals(25, search(cache).size());
+    Assert.assertEquals(25, search(cache).size());
+  }
+
+  @Test
+  public void loadedAreaIsAnsweredFromMemory() {
+    storeMarkers(5);
+    MarkerCache<Long> cache = new MarkerCache<>(10, ONE_MINUTE);
+
+    Assert.assertEquals(5, search(cache).size());
+    int firstLoads = loads;
+    Assert.assertEquals(5, search(cache).size());
+    Assert.assertEquals(firstLoads, loads);
+  }
+
+  @Test
+  public void markerAddedToFullCacheIsStillFound() {
+    storeMarkers(10);
+    MarkerCache<Long> cache = new MarkerCache<>(10, ONE_MINUTE);
+    Assert.assertEquals(10, search(cache).size());
+
+    Marker marker = new Marker(37.405, -122.095, "new");
+    stored.put(100L, marker);
+    cache.add(100L, marker);
+
+    Assert.assertEquals(11, search(cache).size());
+  }
+
+  @Test
+  public void markerAddedDuringLoadIsStillFound() {
+    storeMarkers(5);
+    MarkerCache<Long> cache = new MarkerCache<>(10, ONE_MINUTE);
+    // Fill the cache with markers far away from the view.
+    for (long key = 50; key < 60; key++) {
+      Marker elsewhere = new Marker(40.7, -74.0, "elsewhere " + key);
+      stored.put(key, elsewhere);
+      cache.add(key, elsewhere);
+    }
+    Marker marker = new Marker(37.405, -122.095, "new");
+
+    // The marker is stored by another request after the loader has read the view, while the
+    // cache is full. The view is read as a single area.
+    MarkerCache.AreaLoader<Long> racingLoader = prefix -> {
+      Map<Long, Marker> area = loader.load(prefix);
+      if (!stored.containsKey(100L)) {
+        stored.put(100L, marker);
+        cache.add(100L, marker);
+      }
+      return area;
+    };
+    cache.search(SOUTH, WEST, NORTH, EAST, 1, racingLoader);
+
+    Assert.assertEquals(6, cache.search(SOUTH, WEST, NORTH, EAST, 1, loader).size());
+  }
+
+  private List<Marker> search(MarkerCache<Long> cache) {
+    return cache.search(SOUTH, WEST, NORTH, EAST, MAX_AREAS, loader);
+  }
+
+  /** Stores {@code count} markers spread over the view. */
+  private void storeMarkers(int count) {
+    for (int k = 0; k < count; k++) {
+      double offset = (k + 0.5) / count;
+      stored.put((long) k, new Marker(SOUTH + (NORTH - SOUTH) * offset,
+          WEST + (EAST - WEST) * offset, "marker " + k));
+    }
+  }
+}
@@ -0,0 +1,210 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.data;
+
+import java.util.Arrays;
+
+/**
+ * ClusterIndex groups points into clusters for every map zoom level ahead of time, so that a map
+ * view can be answered with only the clusters it shows. At each zoom level the world is split, in
+ * Web Mercator coordinates, into square cells a quarter of a map tile wide, and the points in a
+ * cell form one cluster placed at their average position.
+ */
+public final class ClusterIndex {
+  /** The deepest zoom level with its own clusters. Deeper zoom levels reuse it. */
+  public static final int MAX_ZOOM = 16;
+
+  // Each 256 pixel map tile is split into 4 x 4 cells, so cells are 64 pixels wide.
+  private static final int CELL_BITS_PER_TILE = 2;
+  private static final int FINEST_BITS = MAX_ZOOM + CELL_BITS_PER_TILE;
+
+  // Points are sorted by a 36 bit Morton key packed together with the index of the point.
+  private static final int INDEX_BITS = 27;
+
+  // Web Mercator cannot show the poles, so latitudes are clamped to the square map.
+  private static final double MAX_LAT = 85.05112878;
+
+  private final Level[] levels = new Level[MAX_ZOOM + 1];
+
+  /** Builds the clusters of {@code points} for every zoom level. */
+  public ClusterIndex(PointSet points) {
+    if (points.size() >= 1 << INDEX_BITS) {
+      throw new IllegalArgumentException("Too many points: " + points.size());
+    }
+
+    // Sort the points along a Z-order curve of the finest cells. The cell of a point at a coarser
+    // level is then its finest Morton key shifted right, and points that share a cell at any level
+    // are next to each other.
+    long[] order = new long[points.size()];
+    for (int k = 0; k < order.length; k++) {
+      long x = cell(mercatorX(points.lng(k)), FINEST_BITS);
+      long y = cell(mercatorY(points.lat(k)), FINEST_BITS);
+      order[k] = (interleave(x) | interleave(y) << 1) << INDEX_BITS | k;
+    }
+    Arrays.sort(order);
+
+    for (int zoom = 0; zoom <= MAX_ZOOM; zoom++) {
+      levels[zoom] = new Level(points, order, zoom);
+    }
+  }
+
+  /**
+   * Returns the clusters whose cells overlap the given view at {@code zoom} as a JSON array, e.g.
+   * [{"lat":38.44,"lng":-122.71,"count":3}]. A view whose west edge is east of its east edge
+   * crosses the antimeridian.
+   *
+   * @throws IllegalArgumentException if the view covers more than {@code maxCells} cells.
+   */
+  public String toJson(double south, double west, double north, double east, int zoom,
+      int maxCells) {
+    Level level = levels[Math.max(0, Math.min(zoom, MAX_ZOOM))];
+    int bits = level.bits;
+    int top = cell(mercatorY(north), bits);
+    int bottom = cell(mercatorY(south), bits);
+    int left = cell(mercatorX(west), bits);
+    int right = cell(mercatorX(east), bits);
+    if (top > bottom) {
+      throw new IllegalArgumentException("north must not be south of south");
+    }
+
+    long rows = bottom - top + 1L;
+    long columns = left <= right ? right - left + 1L : (1L << bits) - left + right + 1L;
+    if (rows * columns > maxCells) {
+      throw new IllegalArgumentException("The view covers too many cells for zoom " + zoom);
+    }
+
+    StringBuilder json = new StringBuilder("[");
+    for (int y = top; y <= bottom; y++) {
+      if (left <= right) {
+        level.appendRow(y, left, right, json);
+      } else {
+        level.appendRow(y, left, (1 << bits) - 1, json);
+        level.appendRow(y, 0, right, json);
+      }
+    }
+    return json.append(']').toString();
+  }
+
+  /** Returns the Web Mercator x of {@code lng}, from 0 at 180 degrees west to 1 at 180 east. */
+  private static double mercatorX(double lng) {
+    return (lng + 180) / 360;
+  }
+
+  /** Returns the Web Mercator y of {@code lat}, from 0 at the top of the map to 1 at the bottom. */
+  private static double mercatorY(double lat) {
+    double radians = Math.toRadians(Math.max(-MAX_LAT, Math.min(MAX_LAT, lat)));
+    return (1 - Math.log(Math.tan(radians) + 1 / Math.cos(radians)) / Math.PI) / 2;
+  }
+
+  /** Returns the cell, out of {@code 2^bits} along an axis, that holds {@code fraction}. */
+  private static int cell(double fraction, int bits) {
+    int cells = 1 << bits;
+    return Math.max(0, Math.min(cells - 1, (int) Math.floor(fraction * cells)));
+  }
+
+  /** Spreads the low 18 bits of {@code value} out to the even bits of the result. */
+  private static long interleave(long value) {
+    long spread = 0;
+    for (int bit = 0; bit < FINEST_BITS; bit++) {
+      spread |= ((value >> bit) & 1) << (2 * bit);
+    }
+    return spread;
+  }
+
+  /** The clusters of one zoom level, sorted by row and then by column. */
+  private static final class Level {
+    final int bits;
+    final long[] cells;
+    final int[] counts;
+    final double[] lats;
+    final double[] lngs;
+
+    Level(PointSet points, long[] order, int zoom) {
+      this.bits = zoom + CELL_BITS_PER_TILE;
+      int shift = 2 * (FINEST_BITS - bits) + INDEX_BITS;
+
+      // Count the clusters first, so that the arrays can be sized exactly.
+      int clusters = 0;
+      for (int k = 0; k < order.length; k++) {
+        if (k == 0 || order[k] >>> shift != order[k - 1] >>> shift) {
+          clusters++;
+        }
+      }
+
+      long[] mortonCells = new long[clusters];
+      int[] clusterCounts = new int[clusters];
+      double[] latSums = new double[clusters];
+      double[] lngSums = new double[clusters];
+      int cluster = -1;
+      for (int k = 0; k < order.length; k++) {
+        long morton = order[k] >>> shift;
+        if (cluster < 0 || morton != mortonCells[cluster]) {
+          mortonCells[++cluster] = morton;
+        }
+        int point = (int) (order[k] & ((1L << INDEX_BITS) - 1));
+        clusterCounts[cluster]++;
+        latSums[cluster] += points.lat(point);
+        lngSums[cluster] += points.lng(point);
+      }
+
+      // Re-sort the clusters by row so that a view can be read one row range at a time.
+      long[] byRow = new long[clusters];
+      for (int k = 0; k < clusters; k++) {
+        long x = compact(mortonCells[k]);
+        long y = compact(mortonCells[k] >>> 1);
+        byRow[k] = ((y << bits) | x) << INDEX_BITS | k;
+      }
+      Arrays.sort(byRow);
+
+      this.cells = new long[clusters];
+      this.counts = new int[clusters];
+      this.lats = new double[clusters];
+      this.lngs = new double[clusters];
+      for (int k = 0; k < clusters; k++) {
+        int source = (int) (byRow[k] & ((1L << INDEX_BITS) - 1));
+        cells[k] = byRow[k] >>> INDEX_BITS;
+        counts[k] = clusterCounts[source];
+        lats[k] = latSums[source] / clusterCounts[source];
+        lngs[k] = lngSums[source] / clusterCounts[source];
+      }
+    }
+
+    /** Appends the clusters in row {@code y} from column {@code left} to {@code right}. */
+    void appendRow(int y, int left, int right, StringBuilder json) {
+      long first = ((long) y << bits) | left;
+      long last = ((long) y << bits) | right;
+      int k = Arrays.binarySearch(cells, first);
+      if (k < 0) {
+        k = -k - 1;
+      }
+      for (; k < cells.length && cells[k] <= last; k++) {
+        if (json.length() > 1) {
+          json.append(',');
+        }
+        json.append("{\"lat\":").append(lats[k]).append(",\"lng\":").append(lngs[k])
+            .append(",\"count\":").append(counts[k]).append('}');
+      }
+    }
+
+    /** Gathers the even bits of {@code morton} into the low bits of the result. */
+    private static long compact(long morton) {
+      long value = 0;
+      for (int bit = 0; bit < FINEST_BITS; bit++) {
+        value |= ((morton >> (2 * bit)) & 1) << bit;
+      }
+      return value;
+    }
+  }
+}
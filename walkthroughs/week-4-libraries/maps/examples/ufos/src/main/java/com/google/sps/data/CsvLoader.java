@@ -0,0 +1,347 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.data;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import javax.servlet.ServletContext;
+
+/**
+ * CsvLoader reads a comma-separated file into primitive column arrays. Numbers are parsed straight
+ * from the file's bytes, so no {@code String} is created except for text columns. Files that are
+ * unpacked on disk are memory-mapped, and files over {@code PARALLEL_THRESHOLD} bytes are split
+ * into chunks of whole lines that are parsed in parallel.
+ */
+public final class CsvLoader {
+  /** What to do with each column of the file. Columns past the last type given are skipped. */
+  public enum ColumnType { INT, DOUBLE, STRING, SKIP }
+
+  /** Files at least this large are parsed on several threads. */
+  public static final int PARALLEL_THRESHOLD = 1 << 20;
+
+  // Every integer up to 2^53 and every power of ten up to 10^22 is exact as a double, so dividing
+  // one by the other gives a correctly rounded result.
+  private static final long MAX_EXACT_MANTISSA = 1L << 53;
+  private static final double[] POWERS_OF_TEN = new double[23];
+
+  static {
+    POWERS_OF_TEN[0] = 1;
+    for (int k = 1; k < POWERS_OF_TEN.length; k++) {
+      POWERS_OF_TEN[k] = POWERS_OF_TEN[k - 1] * 10;
+    }
+  }
+
+  private CsvLoader() {
+    // Disallow instances.
+  }
+
+  /** Loads the web application resource at {@code path}. */
+  public static Table load(ServletContext context, String path, ColumnType... columns)
+      throws IOException {
+    return parse(read(context, path), columns);
+  }
+
+  /** Parses every line of {@code data}, from its position to its limit. */
+  public static Table parse(ByteBuffer data, ColumnType... columns) {
+    int chunks = data.remaining() >= PARALLEL_THRESHOLD
+        ? Runtime.getRuntime().availableProcessors() : 1;
+    return parse(data, chunks, columns);
+  }
+
+  /** Parses every line of {@code data}, split into {@code chunks} parts that run in parallel. */
+  static Table parse(ByteBuffer data, int chunks, ColumnType... columns) {
+    int start = data.position();
+    int end = data.limit();
+    if (chunks <= 1) {
+      return parseChunk(data, start, end, columns);
+    }
+
+    // Move each boundary forward to the start of a line so that no line is split.
+    int[] bounds = new int[chunks + 1];
+    bounds[0] = start;
+    bounds[chunks] = end;
+    for (int k = 1; k < chunks; k++) {
+      int bound = Math.max(bounds[k - 1], start + (int) ((long) (end - start) * k / chunks));
+      while (bound > start && bound < end && data.get(bound - 1) != '\n') {
+        bound++;
+      }
+      bounds[k] = bound;
+    }
+
+    List<Table> parts = IntStream.range(0, chunks).parallel()
+        .mapToObj(k -> parseChunk(data, bounds[k], bounds[k + 1], columns))
+        .collect(Collectors.toList());
+    return Table.concat(columns, parts);
+  }
+
+  private static ByteBuffer read(ServletContext context, String path) throws IOException {
+    String realPath = context.getRealPath(path);
+    if (realPath != null) {
+      Path file = Paths.get(realPath);
+      if (Files.isRegularFile(file)) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+          return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+      }
+    }
+
+    // The resource is packed inside an archive, so read it through a buffer instead.
+    try (InputStream in = context.getResourceAsStream(path)) {
+      if (in == null) {
+        throw new FileNotFoundException(path);
+      }
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 << 16);
+      byte[] buffer = new byte[1 << 16];
+      for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+        bytes.write(buffer, 0, read);
+      }
+      return ByteBuffer.wrap(bytes.toByteArray());
+    }
+  }
+
+  private static Table parseChunk(ByteBuffer data, int start, int end, ColumnType[] columns) {
+    Table table = new Table(columns, Math.max(16, (end - start) / 16));
+    int position = start;
+    while (position < end) {
+      int lineEnd = position;
+      while (lineEnd < end && data.get(lineEnd) != '\n') {
+        lineEnd++;
+      }
+      if (!isBlank(data, position, lineEnd)) {
+        parseLine(data, position, lineEnd, table);
+      }
+      position = lineEnd + 1;
+    }
+    return table;
+  }
+
+  private static void parseLine(ByteBuffer data, int start, int end, Table table) {
+    table.ensureRoom();
+    int fieldStart = start;
+    for (int column = 0; column < table.types.length; column++) {
+      int fieldEnd = fieldStart;
+      while (fieldEnd < end && data.get(fieldEnd) != ',') {
+        fieldEnd++;
+      }
+
+      // Ignore spaces around the value and the carriage return of Windows line endings.
+      int from = fieldStart;
+      int to = fieldEnd;
+      while (from < to && isSpace(data.get(from))) {
+        from++;
+      }
+      while (to > from && isSpace(data.get(to - 1))) {
+        to--;
+      }
+
+      switch (table.types[column]) {
+        case INT:
+          table.ints[column][table.rows] = parseInt(data, from, to);
+          break;
+        case DOUBLE:
+          table.doubles[column][table.rows] = parseDouble(data, from, to);
+          break;
+        case STRING:
+          table.strings[column][table.rows] = text(data, from, to);
+          break;
+        default:
+          break;
+      }
+      fieldStart = Math.min(fieldEnd + 1, end);
+    }
+    table.rows++;
+  }
+
+  static int parseInt(ByteBuffer data, int start, int end) {
+    int position = start;
+    boolean negative = position < end && data.get(position) == '-';
+    if (negative || (position < end && data.get(position) == '+')) {
+      position++;
+    }
+    if (position == end) {
+      throw new NumberFormatException("Not a number: \"" + text(data, start, end) + "\"");
+    }
+
+    long value = 0;
+    for (; position < end; position++) {
+      int digit = data.get(position) - '0';
+      if (digit < 0 || digit > 9 || value > Integer.MAX_VALUE) {
+        // Let the standard parser report the problem.
+        return Integer.parseInt(text(data, start, end));
+      }
+      value = value * 10 + digit;
+    }
+    value = negative ? -value : value;
+    if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+      return Integer.parseInt(text(data, start, end));
+    }
+    return (int) value;
+  }
+
+  static double parseDouble(ByteBuffer data, int start, int end) {
+    int position = start;
+    boolean negative = position < end && data.get(position) == '-';
+    if (negative || (position < end && data.get(position) == '+')) {
+      position++;
+    }
+
+    long mantissa = 0;
+    int digits = 0;
+    int fractionDigits = 0;
+    boolean fraction = false;
+    for (; position < end; position++) {
+      byte c = data.get(position);
+      if (c >= '0' && c <= '9') {
+        mantissa = mantissa * 10 + (c - '0');
+        digits++;
+        if (fraction) {
+          fractionDigits++;
+        }
+        if (mantissa >= MAX_EXACT_MANTISSA) {
+          return Double.parseDouble(text(data, start, end));
+        }
+      } else if (c == '.' && !fraction) {
+        fraction = true;
+      } else {
+        // Exponents, NaN and anything unusual go through the standard parser.
+        return Double.parseDouble(text(data, start, end));
+      }
+    }
+    if (digits == 0 || fractionDigits >= POWERS_OF_TEN.length) {
+      return Double.parseDouble(text(data, start, end));
+    }
+
+    double value = mantissa / POWERS_OF_TEN[fractionDigits];
+    return negative ? -value : value;
+  }
+
+  private static String text(ByteBuffer data, int start, int end) {
+    byte[] bytes = new byte[end - start];
+    for (int k = 0; k < bytes.length; k++) {
+      bytes[k] = data.get(start + k);
+    }
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static boolean isBlank(ByteBuffer data, int start, int end) {
+    for (int k = start; k < end; k++) {
+      if (!isSpace(data.get(k))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isSpace(byte c) {
+    return c == ' ' || c == '\t' || c == '\r';
+  }
+
+  /** The parsed columns of a file, one primitive array per column. */
+  public static final class Table {
+    private final ColumnType[] types;
+    private final int[][] ints;
+    private final double[][] doubles;
+    private final String[][] strings;
+    private int rows;
+    private int capacity;
+
+    private Table(ColumnType[] types, int capacity) {
+      this.types = types;
+      this.capacity = capacity;
+      this.ints = new int[types.length][];
+      this.doubles = new double[types.length][];
+      this.strings = new String[types.length][];
+      for (int column = 0; column < types.length; column++) {
+        if (types[column] == ColumnType.INT) {
+          ints[column] = new int[capacity];
+        } else if (types[column] == ColumnType.DOUBLE) {
+          doubles[column] = new double[capacity];
+        } else if (types[column] == ColumnType.STRING) {
+          strings[column] = new String[capacity];
+        }
+      }
+    }
+
+    /** Returns the number of lines that were read. */
+    public int rows() {
+      return rows;
+    }
+
+    /** Returns the values of an {@code INT} column. */
+    public int[] intColumn(int column) {
+      return Arrays.copyOf(ints[column], rows);
+    }
+
+    /** Returns the values of a {@code DOUBLE} column. */
+    public double[] doubleColumn(int column) {
+      return Arrays.copyOf(doubles[column], rows);
+    }
+
+    /** Returns the values of a {@code STRING} column. */
+    public String[] stringColumn(int column) {
+      return Arrays.copyOf(strings[column], rows);
+    }
+
+    private void ensureRoom() {
+      if (rows < capacity) {
+        return;
+      }
+      capacity *= 2;
+      for (int column = 0; column < types.length; column++) {
+        if (ints[column] != null) {
+          ints[column] = Arrays.copyOf(ints[column], capacity);
+        } else if (doubles[column] != null) {
+          doubles[column] = Arrays.copyOf(doubles[column], capacity);
+        } else if (strings[column] != null) {
+          strings[column] = Arrays.copyOf(strings[column], capacity);
+        }
+      }
+    }
+
+    private static Table concat(ColumnType[] types, List<Table> parts) {
+      int total = 0;
+      for (Table part : parts) {
+        total += part.rows;
+      }
+      Table table = new Table(types, total);
+      for (Table part : parts) {
+        for (int column = 0; column < types.length; column++) {
+          if (part.ints[column] != null) {
+            System.arraycopy(part.ints[column], 0, table.ints[column], table.rows, part.rows);
+          } else if (part.doubles[column] != null) {
+            System.arraycopy(part.doubles[column], 0, table.doubles[column], table.rows, part.rows);
+          } else if (part.strings[column] != null) {
+            System.arraycopy(part.strings[column], 0, table.strings[column], table.rows, part.rows);
+          }
+        }
+        table.rows += part.rows;
+      }
+      return table;
+    }
+  }
+}
@@ -0,0 +1,131 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.zip.GZIPOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * JsonSnapshot holds a JSON response that never changes, serialized and compressed once up front.
+ * Each request is then answered with a single buffer write, or with 304 Not Modified when the
+ * client already has the same bytes.
+ */
+public final class JsonSnapshot {
+  private final byte[] identity;
+  private final byte[] gzip;
+  private final String identityEtag;
+  private final String gzipEtag;
+
+  public JsonSnapshot(String json) {
+    this.identity = json.getBytes(StandardCharsets.UTF_8);
+    this.gzip = compress(identity);
+    // Each encoding is a different set of bytes, so each gets its own strong ETag.
+    String hash = hash(identity);
+    this.identityEtag = "\"" + hash + "\"";
+    this.gzipEtag = "\"" + hash + "-gzip\"";
+  }
+
+  /** Sends the snapshot, gzip-encoded if the client accepts it. */
+  public void send(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    boolean useGzip = acceptsGzip(request.getHeader("Accept-Encoding"));
+    String etag = useGzip ? gzipEtag : identityEtag;
+    response.setHeader("ETag", etag);
+    response.setHeader("Vary", "Accept-Encoding");
+
+    // The client already has this exact response cached.
+    if (matchesEtag(request.getHeader("If-None-Match"), etag)) {
+      response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+      return;
+    }
+
+    byte[] body = useGzip ? gzip : identity;
+    response.setContentType("application/json");
+    response.setCharacterEncoding("UTF-8");
+    if (useGzip) {
+      response.setHeader("Content-Encoding", "gzip");
+    }
+    response.setContentLength(body.length);
+    response.getOutputStream().write(body);
+  }
+
+  /** Returns whether an Accept-Encoding header allows gzip. */
+  static boolean acceptsGzip(String acceptEncoding) {
+    if (acceptEncoding == null) {
+      return false;
+    }
+    for (String candidate : acceptEncoding.split(",")) {
+      String[] parts = candidate.trim().split(";");
+      String coding = parts[0].trim();
+      if (coding.equalsIgnoreCase("gzip") || coding.equals("*")) {
+        return parts.length < 2 || !isZeroQuality(parts[1]);
+      }
+    }
+    return false;
+  }
+
+  /** Returns whether an If-None-Match header lists {@code etag}. */
+  static boolean matchesEtag(String ifNoneMatch, String etag) {
+    if (ifNoneMatch == null) {
+      return false;
+    }
+    for (String candidate : ifNoneMatch.split(",")) {
+      String trimmed = candidate.trim();
+      if (trimmed.equals("*") || trimmed.equals(etag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean isZeroQuality(String parameter) {
+    String[] nameAndValue = parameter.trim().split("=");
+    if (nameAndValue.length != 2 || !nameAndValue[0].trim().equalsIgnoreCase("q")) {
+      return false;
+    }
+    try {
+      return Double.parseDouble(nameAndValue[1].trim()) == 0;
+    } catch (NumberFormatException e) {
+      return false;
+    }
+  }
+
+  private static byte[] compress(byte[] body) {
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4 + 64);
+    try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+      out.write(body);
+    } catch (IOException e) {
+      // Writing to memory cannot fail.
+      throw new IllegalStateException(e);
+    }
+    return compressed.toByteArray();
+  }
+
+  private static String hash(byte[] body) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+      return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+    } catch (NoSuchAlgorithmException e) {
+      // Every Java platform is required to support SHA-256.
+      throw new IllegalStateException(e);
+    }
+  }
+}
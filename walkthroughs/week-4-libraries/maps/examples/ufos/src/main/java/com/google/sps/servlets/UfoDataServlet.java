@@ -14,45 +14,80 @@
 
 package com.google.sps.servlets;
 
-import com.google.sps.data.UfoSighting;
-import com.google.gson.Gson;
+import com.google.sps.data.ClusterIndex;
+import com.google.sps.data.CsvLoader;
+import com.google.sps.data.CsvLoader.ColumnType;
+import com.google.sps.data.PointSet;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Scanner;
+import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
-/** Returns UFO data as a JSON array, e.g. [{"lat": 38.4404675, "lng": -122.7144313}] */
+/**
+ * Returns UFO data as a JSON array, e.g. [{"lat": 38.4404675, "lng": -122.7144313}]. Given a map
+ * view as north, south, east, west and zoom parameters, it returns only the clusters in that view
+ * instead, e.g. [{"lat": 38.4404675, "lng": -122.7144313, "count": 3}].
+ */
 @WebServlet("/ufo-data")
 public class UfoDataServlet extends HttpServlet {
 
-  private Collection<UfoSighting> ufoSightings;
+  // The most cells a single view may cover, which bounds the size of a response. A full
+  // screen map covers a few hundred.
+  private static final int MAX_VIEW_CELLS = 1 << 16;
 
-  @Override
-  public void init() {
-    ufoSightings = new ArrayList<>();
-
-    Scanner scanner = new Scanner(getServletContext().getResourceAsStream("/WEB-INF/ufo-data.csv"));
-    while (scanner.hasNextLine()) {
-      String line = scanner.nextLine();
-      String[] cells = line.split(",");
+  private ClusterIndex clusters;
 
-      double lat = Double.parseDouble(cells[0]);
-      double lng = Double.parseDouble(cells[1]);
+  // The data never changes, so the JSON is built once and the same bytes are sent every time.
+  private JsonSnapshot snapshot;
 
-      ufoSightings.add(new UfoSighting(lat, lng));
+  @Override
+  public void init() throws ServletException {
+    CsvLoader.Table table;
+    try {
+      table = CsvLoader.load(getServletContext(), "/WEB-INF/ufo-data.csv",
+          ColumnType.DOUBLE, ColumnType.DOUBLE);
+    } catch (IOException e) {
+      throw new ServletException("Could not read ufo-data.csv", e);
     }
-    scanner.close();
+    PointSet ufoSightings = new PointSet(table.doubleColumn(0), table.doubleColumn(1));
+
+    snapshot = new JsonSnapshot(ufoSightings.toJson());
+    clusters = new ClusterIndex(ufoSightings);
   }
 
   @Override
   public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    if (request.getParameter("zoom") == null) {
+      snapshot.send(request, response);
+      return;
+    }
+
+    String south = request.getParameter("south");
+    String west = request.getParameter("west");
+    String north = request.getParameter("north");
+    String east = request.getParameter("east");
+    String zoom = request.getParameter("zoom");
+    if (south == null || west == null || north == null || east == null) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST,
+          "A zoom parameter needs north, south, east and west parameters too");
+      return;
+    }
+
+    String json;
+    try {
+      json = clusters.toJson(Double.parseDouble(south), Double.parseDouble(west),
+          Double.parseDouble(north), Double.parseDouble(east), Integer.parseInt(zoom),
+          MAX_VIEW_CELLS);
+    } catch (IllegalArgumentException e) {
+      // A parameter is not a number, or the view is too large for its zoom level.
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST,
+          "Expected numeric north, south, east, west and zoom parameters describing a map view");
+      return;
+    }
     response.setContentType("application/json");
-    Gson gson = new Gson();
-    String json = gson.toJson(ufoSightings);
-    response.getWriter().println(json);
+    response.setCharacterEncoding("UTF-8");
+    response.getWriter().print(json);
   }
 }
@@ -12,16 +12,50 @@
 // See the License for the specific language governing permissions and
 // limitations under the License.
 
-/** Fetches UFO sightings data from the server and displays it in a map. */
+/**
+ * Creates a map that shows UFO sightings. Whenever the view changes, only the clusters of
+ * sightings inside it are fetched from the server.
+ */
 function createUfoSightingsMap() {
-  fetch('/ufo-data').then(response => response.json()).then((ufoSightings) => {
-    const map = new google.maps.Map(
-        document.getElementById('map'),
-        {center: {lat: 35.78613674, lng: -119.4491591}, zoom: 7});
+  const map = new google.maps.Map(
+      document.getElementById('map'),
+      {center: {lat: 35.78613674, lng: -119.4491591}, zoom: 7});
 
-    ufoSightings.forEach((ufoSighting) => {
-      new google.maps.Marker(
-          {position: {lat: ufoSighting.lat, lng: ufoSighting.lng}, map: map});
+  let markers = [];
+  // The request for the current view. Moving the map again cancels it, so that a slow response
+  // for an old view cannot replace the markers of a newer one.
+  let request = null;
+  map.addListener('idle', () => {
+    const bounds = map.getBounds();
+    const params = new URLSearchParams({
+      north: bounds.getNorthEast().lat(),
+      east: bounds.getNorthEast().lng(),
+      south: bounds.getSouthWest().lat(),
+      west: bounds.getSouthWest().lng(),
+      zoom: map.getZoom(),
     });
+    if (request) {
+      request.abort();
+    }
+    const controller = new AbortController();
+    request = controller;
+    fetch('/ufo-data?' + params, {signal: controller.signal})
+        .then((response) => response.json())
+        .then((clusters) => {
+          if (controller.signal.aborted) {
+            return;
+          }
+          markers.forEach((marker) => marker.setMap(null));
+          markers = clusters.map((cluster) => new google.maps.Marker({
+            position: {lat: cluster.lat, lng: cluster.lng},
+            label: cluster.count > 1 ? String(cluster.count) : undefined,
+            map: map,
+          }));
+        })
+        .catch((error) => {
+          if (error.name !== 'AbortError') {
+            throw error;
+          }
+        });
   });
 }
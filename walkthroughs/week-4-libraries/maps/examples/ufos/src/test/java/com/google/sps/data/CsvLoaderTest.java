@@ -0,0 +1,169 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.data;
+
+import com.google.sps.data.CsvLoader.ColumnType;
+import com.google.sps.data.CsvLoader.Table;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class CsvLoaderTest {
+  private static final ColumnType[] COLUMNS =
+      {ColumnType.INT, ColumnType.DOUBLE, ColumnType.STRING, ColumnType.DOUBLE};
+
+  @Test
+  public void intsMatchStandardParser() {
+    String[] inputs = {"0", "7", "-0", "+5", "007", "-42", "2147483647", "-2147483648",
+        "2147483648", "-2147483649", "99999999999", "", "-", "+", "1a", "1.0", "1e3", " 1"};
+    for (String input : inputs) {
+      assertIntMatches(input);
+    }
+  }
+
+  @Test
+  public void doublesMatchStandardParser() {
+    String[] inputs = {"0", "-0", "0.0", "-0.0", "1", "+1.25", "3.14159", "0.1", "0.3", ".5", "5.",
+        "-122.4194", "37.774929", "1e10", "1.5E-7", "-2.5e+3", "9007199254740991",
+        "9007199254740993", "123456789012345678", "0.0000000000000000000001",
+        "0.00000000000000000000001", "1.7976931348623157E308", "4.9E-324", "NaN", "-Infinity",
+        "", ".", "-", "1.2.3", "1,5", "0x10"};
+    for (String input : inputs) {
+      assertDoubleMatches(input);
+    }
+  }
+
+  @Test
+  public void randomDoublesAreCorrectlyRounded() {
+    Random random = new Random(42);
+    for (int k = 0; k < 100000; k++) {
+      StringBuilder input = new StringBuilder();
+      if (random.nextBoolean()) {
+        input.append('-');
+      }
+      input.append(random.nextInt(1000));
+      input.append('.');
+      int fractionDigits = 1 + random.nextInt(12);
+      for (int d = 0; d < fractionDigits; d++) {
+        input.append(random.nextInt(10));
+      }
+      assertDoubleMatches(input.toString());
+    }
+  }
+
+  @Test
+  public void fieldsAreTrimmedAndLineEndingsIgnored() {
+    Table table = CsvLoader.parse(bytes("1, 2.5 ,abc,-1e2\r\n\r\n  -3,-0.25, d e ,7\r\n9,1,x,2"),
+        COLUMNS);
+
+    Assert.assertEquals(3, table.rows());
+    Assert.assertArrayEquals(new int[] {1, -3, 9}, table.intColumn(0));
+    Assert.assertArrayEquals(new double[] {2.5, -0.25, 1}, table.doubleColumn(1), 0);
+    Assert.assertArrayEquals(new String[] {"abc", "d e", "x"}, table.stringColumn(2));
+    Assert.assertArrayEquals(new double[] {-100, 7, 2}, table.doubleColumn(3), 0);
+  }
+
+  @Test(expected = NumberFormatException.class)
+  public void emptyNumberIsRejected() {
+    CsvLoader.parse(bytes("1,,abc,2\n"), COLUMNS);
+  }
+
+  @Test
+  public void chunkedParseMatchesSequentialParse() {
+    String header = "id,value,name,score\n";
+    ByteBuffer data = bytes(header + randomRows(new Random(7), 3000));
+    // Skip the header, so that the first chunk does not start at zero.
+    data.position(header.length());
+    Table expected = CsvLoader.parse(data, 1, COLUMNS);
+    Assert.assertEquals(3000, expected.rows());
+
+    for (int chunks : new int[] {2, 3, 7, 64, 1000}) {
+      assertSameTable(expected, CsvLoader.parse(data, chunks, COLUMNS));
+    }
+  }
+
+  @Test
+  public void moreChunksThanBytes() {
+    ByteBuffer data = bytes("1,2,a,3\n4,5,b,6");
+
+    assertSameTable(CsvLoader.parse(data, 1, COLUMNS), CsvLoader.parse(data, 100, COLUMNS));
+  }
+
+  private static void assertIntMatches(String input) {
+    Integer expected;
+    try {
+      expected = Integer.parseInt(input);
+    } catch (NumberFormatException e) {
+      expected = null;
+    }
+    Integer actual;
+    try {
+      actual = CsvLoader.parseInt(bytes(input), 0, input.length());
+    } catch (NumberFormatException e) {
+      actual = null;
+    }
+    Assert.assertEquals("\"" + input + "\"", expected, actual);
+  }
+
+  private static void assertDoubleMatches(String input) {
+    Long expected;
+    try {
+      expected = Double.doubleToLongBits(Double.parseDouble(input));
+    } catch (NumberFormatException e) {
+      expected = null;
+    }
+    Long actual;
+    try {
+      actual = Double.doubleToLongBits(CsvLoader.parseDouble(bytes(input), 0, input.length()));
+    } catch (NumberFormatException e) {
+      actual = null;
+    }
+    Assert.assertEquals("\"" + input + "\"", expected, actual);
+  }
+
+  private static void assertSameTable(Table expected, Table actual) {
+    Assert.assertEquals(expected.rows(), actual.rows());
+    Assert.assertArrayEquals(expected.intColumn(0), actual.intColumn(0));
+    Assert.assertArrayEquals(expected.doubleColumn(1), actual.doubleColumn(1), 0);
+    Assert.assertArrayEquals(expected.stringColumn(2), actual.stringColumn(2));
+    Assert.assertArrayEquals(expected.doubleColumn(3), actual.doubleColumn(3), 0);
+  }
+
+  /** Returns rows of random values, with a mix of line endings and some blank lines. */
+  private static String randomRows(Random random, int rows) {
+    StringBuilder csv = new StringBuilder();
+    for (int k = 0; k < rows; k++) {
+      csv.append(random.nextInt() / 1000).append(',')
+          .append(random.nextInt(360) - 180).append('.').append(random.nextInt(1000000))
+          .append(",name ").append(k).append(',')
+          .append(random.nextDouble() * 1e6)
+          .append(random.nextBoolean() ? "\r\n" : "\n");
+      if (random.nextInt(50) == 0) {
+        csv.append('\n');
+      }
+    }
+    return csv.toString();
+  }
+
+  private static ByteBuffer bytes(String text) {
+    return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -18,6 +18,7 @@ import com.google.cloud.language.v1.Document;
 import com.google.cloud.language.v1.LanguageServiceClient;
 import com.google.cloud.language.v1.Sentiment;
 import java.io.IOException;
+import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
@@ -26,16 +27,39 @@ import javax.servlet.http.HttpServletResponse;
 @WebServlet("/sentiment")
 public class SentimentAnalysisServlet extends HttpServlet {
 
+  // One client is shared by every request. It is thread-safe, and creating it sets up a channel
+  // and loads credentials, which costs far more than a single call.
+  private LanguageServiceClient languageService;
+
+  public SentimentAnalysisServlet() {}
+
+  /** Creates a servlet that uses {@code languageService}, for example a local stub in tests. */
+  SentimentAnalysisServlet(LanguageServiceClient languageService) {
+    this.languageService = languageService;
+  }
+
+  @Override
+  public void init() throws ServletException {
+    if (languageService == null) {
+      languageService = createClient();
+    }
+  }
+
+  @Override
+  public void destroy() {
+    if (languageService != null) {
+      languageService.close();
+    }
+  }
+
   @Override
   public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
     String message = request.getParameter("message");
 
     Document doc =
         Document.newBuilder().setContent(message).setType(Document.Type.PLAIN_TEXT).build();
-    LanguageServiceClient languageService = LanguageServiceClient.create();
-    Sentiment sentiment = languageService.analyzeSentiment(doc).getDocumentSentiment();
+    Sentiment sentiment = languageService().analyzeSentiment(doc).getDocumentSentiment();
     float score = sentiment.getScore();
-    languageService.close();
 
     // Output the sentiment score as HTML.
     // A real project would probably store the score alongside the content.
@@ -45,4 +69,21 @@ public class SentimentAnalysisServlet extends HttpServlet {
     response.getWriter().println("<p>Sentiment analysis score: " + score + "</p>");
     response.getWriter().println("<p><a href=\"/\">Back</a></p>");
   }
+
+  /** Returns the shared client, replacing it first if it has been shut down. */
+  private synchronized LanguageServiceClient languageService() throws IOException {
+    if (languageService.isShutdown() || languageService.isTerminated()) {
+      languageService.close();
+      languageService = LanguageServiceClient.create();
+    }
+    return languageService;
+  }
+
+  private static LanguageServiceClient createClient() throws ServletException {
+    try {
+      return LanguageServiceClient.create();
+    } catch (IOException e) {
+      throw new ServletException("Could not create the Natural Language client", e);
+    }
+  }
 }
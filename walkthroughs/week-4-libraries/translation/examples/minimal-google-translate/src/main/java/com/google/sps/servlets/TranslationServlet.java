@@ -26,6 +26,24 @@ import javax.servlet.http.HttpServletResponse;
 @WebServlet("/translate")
 public class TranslationServlet extends HttpServlet {
 
+  // One client is shared by every request. It is thread-safe, and creating it loads credentials
+  // and options, which costs more than a single call.
+  private Translate translate;
+
+  public TranslationServlet() {}
+
+  /** Creates a servlet that uses {@code translate}, for example a local stub in tests. */
+  TranslationServlet(Translate translate) {
+    this.translate = translate;
+  }
+
+  @Override
+  public void init() {
+    if (translate == null) {
+      translate = TranslateOptions.getDefaultInstance().getService();
+    }
+  }
+
   @Override
   public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
     // Get the request parameters.
@@ -33,7 +51,6 @@ public class TranslationServlet extends HttpServlet {
     String languageCode = request.getParameter("languageCode");
 
     // Do the translation.
-    Translate translate = TranslateOptions.getDefaultInstance().getService();
     Translation translation =
         translate.translate(originalText, Translate.TranslateOption.targetLanguage(languageCode));
     String translatedText = translation.getTranslatedText();
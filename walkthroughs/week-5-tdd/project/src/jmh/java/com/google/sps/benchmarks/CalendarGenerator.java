@@ -0,0 +1,113 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.benchmarks;
+
+import com.google.sps.Event;
+import com.google.sps.MeetingRequest;
+import com.google.sps.TimeRange;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * CalendarGenerator builds synthetic calendars and meeting requests for the benchmarks. The same
+ * seed always produces the same calendar, so runs can be compared with each other.
+ */
+public final class CalendarGenerator {
+  private static final int MINUTES_PER_DAY = TimeRange.WHOLE_DAY.duration();
+  private static final int MAX_EVENT_DURATION = 120;
+
+  private final Random random;
+  private final int attendeeCount;
+  private final int eventsPerAttendee;
+  private final double overlapDensity;
+  private final double optionalRatio;
+
+  /**
+   * Creates a new generator.
+   *
+   * @param seed The seed for the random number generator.
+   * @param attendeeCount The number of distinct people on the calendar.
+   * @param eventsPerAttendee The number of events each person is invited to.
+   * @param overlapDensity The probability, from 0 to 1, that an event overlaps the previous event
+   *     of the same person.
+   * @param optionalRatio The fraction, from 0 to 1, of the requested attendees that are optional.
+   */
+  public CalendarGenerator(long seed, int attendeeCount, int eventsPerAttendee,
+      double overlapDensity, double optionalRatio) {
+    this.random = new Random(seed);
+    this.attendeeCount = attendeeCount;
+    this.eventsPerAttendee = eventsPerAttendee;
+    this.overlapDensity = overlapDensity;
+    this.optionalRatio = optionalRatio;
+  }
+
+  /**
+   * Returns the name of the person with index {@code index}.
+   */
+  public static String attendee(int index) {
+    return "Person " + index;
+  }
+
+  /**
+   * Returns a calendar with {@code eventsPerAttendee} events for each person.
+   */
+  public List<Event> events() {
+    List<Event> events = new ArrayList<>(attendeeCount * eventsPerAttendee);
+    for (int person = 0; person < attendeeCount; person++) {
+      int previousStart = random.nextInt(MINUTES_PER_DAY);
+      int previousEnd = previousStart;
+      for (int k = 0; k < eventsPerAttendee; k++) {
+        int start;
+        if (k > 0 && previousEnd > previousStart && random.nextDouble() < overlapDensity) {
+          start = previousStart + random.nextInt(previousEnd - previousStart);
+        } else {
+          start = random.nextInt(MINUTES_PER_DAY);
+        }
+        int duration = 15 + random.nextInt(MAX_EVENT_DURATION - 15);
+        int end = Math.min(start + duration, MINUTES_PER_DAY);
+        events.add(new Event("Event " + person + "-" + k, TimeRange.fromStartEnd(start, end, false),
+            Arrays.asList(attendee(person))));
+        previousStart = start;
+        previousEnd = end;
+      }
+    }
+    return events;
+  }
+
+  /**
+   * Returns a request for {@code attendees} random people, {@code optionalRatio} of which are
+   * optional.
+   */
+  public MeetingRequest request(int attendees, int duration) {
+    List<String> required = new ArrayList<>();
+    List<String> optional = new ArrayList<>();
+    for (int k = 0; k < attendees; k++) {
+      String person = attendee(random.nextInt(attendeeCount));
+      if (random.nextDouble() < optionalRatio) {
+        optional.add(person);
+      } else {
+        required.add(person);
+      }
+    }
+
+    MeetingRequest request = new MeetingRequest(required, duration);
+    for (String person : optional) {
+      request.addOptionalAttendee(person);
+    }
+    return request;
+  }
+}
@@ -0,0 +1,107 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.benchmarks;
+
+import com.google.sps.AttendeeBusyIndex;
+import com.google.sps.Event;
+import com.google.sps.FindMeetingQuery;
+import com.google.sps.MeetingRequest;
+import com.google.sps.TimeRange;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@code FindMeetingQuery} on synthetic calendars. Throughput and sampled latency
+ * percentiles are reported for each engine. Add {@code -prof gc} to {@code jmh.args} to also
+ * report the allocation rate per query.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FindMeetingQueryBenchmark {
+  @Param({"100", "1000"})
+  public int attendeeCount;
+
+  @Param({"10", "50"})
+  public int eventsPerAttendee;
+
+  @Param({"0.2"})
+  public double overlapDensity;
+
+  @Param({"0.3"})
+  public double optionalRatio;
+
+  @Param({"20"})
+  public int requestedAttendees;
+
+  private List<Event> events;
+  private AttendeeBusyIndex index;
+  private MeetingRequest request;
+
+  private final FindMeetingQuery sweepLineQuery =
+      new FindMeetingQuery(FindMeetingQuery.Backend.SWEEP_LINE);
+  private final FindMeetingQuery bitmapQuery =
+      new FindMeetingQuery(FindMeetingQuery.Backend.MINUTE_BITMAP);
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    CalendarGenerator generator = new CalendarGenerator(
+        42, attendeeCount, eventsPerAttendee, overlapDensity, optionalRatio);
+    events = generator.events();
+    index = AttendeeBusyIndex.fromEvents(events);
+    request = generator.request(requestedAttendees, 30);
+  }
+
+  @Benchmark
+  public Collection<TimeRange> sweepLineOverEvents() {
+    return sweepLineQuery.query(events, request);
+  }
+
+  @Benchmark
+  public Collection<TimeRange> bitmapOverEvents() {
+    return bitmapQuery.query(events, request);
+  }
+
+  @Benchmark
+  public Collection<TimeRange> sweepLineOverIndex() {
+    return sweepLineQuery.query(index, request);
+  }
+
+  @Benchmark
+  public Collection<TimeRange> bitmapOverIndex() {
+    return bitmapQuery.query(index, request);
+  }
+
+  @Benchmark
+  public Collection<TimeRange> maximizeOptionalAttendeesOverIndex() {
+    return sweepLineQuery.queryMaximizingOptionalAttendees(index, request);
+  }
+}
@@ -0,0 +1,143 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * AttendeeBusyIndex maps each attendee to their busy time, already merged into disjoint blocks
+ * sorted by start. The blocks are packed as {@code start, end} pairs in an {@code int[]}. Recurring
+ * events are kept as rules and only expanded over the window of a query. Time outside of an
+ * attendee's working hours is merged into their busy time for the first day up front. The index is
+ * read-only once built, so a single instance can be shared by concurrent queries.
+ */
+public final class AttendeeBusyIndex implements BusyTimeSource {
+  private static final int[] NO_BUSY_TIME = new int[0];
+  private static final Event[] NO_EVENTS = new Event[0];
+
+  private final Map<String, int[]> busyTimes;
+  private final Map<String, Event[]> recurringEvents;
+  private final Map<String, WorkingHours> workingHours;
+
+  private AttendeeBusyIndex(Map<String, int[]> busyTimes, Map<String, Event[]> recurringEvents,
+      Map<String, WorkingHours> workingHours) {
+    this.busyTimes = busyTimes;
+    this.recurringEvents = recurringEvents;
+    this.workingHours = workingHours;
+  }
+
+  /**
+   * Builds an index from {@code events}. This scans every event once, so it should be done when
+   * the set of events changes rather than once per query.
+   */
+  public static AttendeeBusyIndex fromEvents(Collection<Event> events) {
+    return fromEvents(events, Collections.<String, WorkingHours>emptyMap());
+  }
+
+  /**
+   * Builds an index from {@code events}, treating time outside of each attendee's
+   * {@code workingHours} as busy. Attendees without an entry can meet at any time.
+   */
+  public static AttendeeBusyIndex fromEvents(
+      Collection<Event> events, Map<String, WorkingHours> workingHours) {
+    Map<String, SweepLine> busyTimesBuilder = new HashMap<>();
+    for (Map.Entry<String, WorkingHours> entry : workingHours.entrySet()) {
+      SweepLine busyTime = new SweepLine(4);
+      entry.getValue().addBlockedTimes(TimeRange.WHOLE_DAY, busyTime);
+      busyTimesBuilder.put(entry.getKey(), busyTime);
+    }
+
+    Map<String, List<Event>> recurringEventsBuilder = new HashMap<>();
+    for (Event event : events) {
+      if (event.isRecurring()) {
+        for (String attendee : event.getAttendees()) {
+          List<Event> attendeeEvents = recurringEventsBuilder.get(attendee);
+          if (attendeeEvents == null) {
+            attendeeEvents = new ArrayList<>();
+            recurringEventsBuilder.put(attendee, attendeeEvents);
+          }
+          attendeeEvents.add(event);
+        }
+        continue;
+      }
+
+      TimeRange when = event.getWhen();
+      for (String attendee : event.getAttendees()) {
+        SweepLine busyTime = busyTimesBuilder.get(attendee);
+        if (busyTime == null) {
+          busyTime = new SweepLine(4);
+          busyTimesBuilder.put(attendee, busyTime);
+        }
+        busyTime.add(when.start(), when.end());
+      }
+    }
+
+    Map<String, int[]> busyTimes = new HashMap<>();
+    for (Map.Entry<String, SweepLine> entry : busyTimesBuilder.entrySet()) {
+      busyTimes.put(entry.getKey(), entry.getValue().mergedBusyIntervals());
+    }
+    Map<String, Event[]> recurringEvents = new HashMap<>();
+    for (Map.Entry<String, List<Event>> entry : recurringEventsBuilder.entrySet()) {
+      recurringEvents.put(entry.getKey(), entry.getValue().toArray(NO_EVENTS));
+    }
+    return new AttendeeBusyIndex(Collections.unmodifiableMap(busyTimes),
+        Collections.unmodifiableMap(recurringEvents),
+        Collections.unmodifiableMap(new HashMap<>(workingHours)));
+  }
+
+  /**
+   * Marks the busy time of {@code attendee} that overlaps {@code window} as busy in
+   * {@code availability}, expanding their recurring events over the window only.
+   */
+  @Override
+  public void addBusyTimes(String attendee, TimeRange window, Availability availability) {
+    availability.addAll(getBusyTimes(attendee));
+
+    // Working hours for the first day are already part of the merged busy times.
+    WorkingHours hours = workingHours.get(attendee);
+    if (hours != null && !TimeRange.WHOLE_DAY.contains(window)) {
+      hours.addBlockedTimes(window, availability);
+    }
+
+    Event[] attendeeEvents = recurringEvents.get(attendee);
+    if (attendeeEvents != null) {
+      for (Event event : attendeeEvents) {
+        event.addOccurrences(window.start(), window.end(), availability);
+      }
+    }
+  }
+
+  /**
+   * Returns the merged busy intervals of {@code attendee}'s one-off events and first-day working
+   * hours packed as {@code start, end} pairs. The returned array is shared and must not be
+   * modified.
+   */
+  public int[] getBusyTimes(String attendee) {
+    int[] busyTime = busyTimes.get(attendee);
+    return busyTime == null ? NO_BUSY_TIME : busyTime;
+  }
+
+  /**
+   * Returns the number of attendees that have at least one one-off event or working hours.
+   */
+  public int size() {
+    return busyTimes.size();
+  }
+}
@@ -0,0 +1,111 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * AttendeeDictionary maps attendee names to dense int IDs, so that events can store their
+ * attendees as small sorted arrays and requests as bitsets. IDs are handed out in order starting
+ * at zero and are never reused; a name keeps its ID for the life of the dictionary.
+ */
+public final class AttendeeDictionary {
+  private static final AttendeeDictionary GLOBAL = new AttendeeDictionary();
+
+  private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+
+  // Names indexed by ID. The array is replaced, never shrunk, when it fills up, so readers always
+  // see every name whose ID they could have been given.
+  private volatile String[] names = new String[16];
+  private int size;
+
+  /**
+   * Returns the dictionary shared by every {@code Event} and {@code MeetingRequest}.
+   */
+  public static AttendeeDictionary global() {
+    return GLOBAL;
+  }
+
+  /**
+   * Returns the ID of {@code name}, assigning the next free ID if it has none yet.
+   */
+  public int intern(String name) {
+    Integer id = ids.get(name);
+    if (id != null) {
+      return id;
+    }
+    synchronized (this) {
+      id = ids.get(name);
+      if (id != null) {
+        return id;
+      }
+      String[] current = names;
+      if (size == current.length) {
+        current = Arrays.copyOf(current, current.length * 2);
+      }
+      current[size] = name;
+      names = current;
+      ids.put(name, size);
+      return size++;
+    }
+  }
+
+  /**
+   * Returns the sorted, distinct IDs of {@code names}, interning any that are new.
+   */
+  public int[] internAll(Collection<String> names) {
+    int[] result = new int[names.size()];
+    int count = 0;
+    for (String name : names) {
+      result[count++] = intern(name);
+    }
+    Arrays.sort(result);
+
+    int distinct = 0;
+    for (int k = 0; k < count; k++) {
+      if (distinct == 0 || result[distinct - 1] != result[k]) {
+        result[distinct++] = result[k];
+      }
+    }
+    return distinct == result.length ? result : Arrays.copyOf(result, distinct);
+  }
+
+  /**
+   * Returns the ID of {@code name}, or -1 if it has never been interned.
+   */
+  public int find(String name) {
+    Integer id = ids.get(name);
+    return id == null ? -1 : id;
+  }
+
+  /**
+   * Returns the name with the given ID.
+   */
+  public String name(int id) {
+    if (id < 0 || id >= ids.size()) {
+      throw new IllegalArgumentException("Unknown attendee id: " + id);
+    }
+    return names[id];
+  }
+
+  /**
+   * Returns the number of names that have been interned.
+   */
+  public int size() {
+    return ids.size();
+  }
+}
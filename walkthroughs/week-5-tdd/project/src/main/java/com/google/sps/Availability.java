@@ -0,0 +1,47 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.List;
+
+/**
+ * Availability accumulates the busy time of a group of attendees and reports the gaps in which they
+ * are all free. {@code FindMeetingQuery} can run on any implementation.
+ */
+public interface Availability {
+  /**
+   * Marks {@code [start, end)} as busy.
+   */
+  void add(int start, int end);
+
+  /**
+   * Marks every interval of {@code packed} as busy. The array holds {@code start, end} pairs, as
+   * stored in an {@code AttendeeBusyIndex}.
+   */
+  void addAll(int[] packed);
+
+  /**
+   * Returns the free gaps within {@code window} that last at least {@code duration} minutes, sorted
+   * by start. Busy time outside of the window is ignored.
+   */
+  List<TimeRange> freeRanges(TimeRange window, long duration);
+
+  /**
+   * Returns the free gaps of the day that last at least {@code duration} minutes, sorted by start.
+   */
+  default List<TimeRange> freeRanges(long duration) {
+    return freeRanges(TimeRange.WHOLE_DAY, duration);
+  }
+}
@@ -0,0 +1,28 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+/**
+ * BusyTimeSource looks up the busy time of a single attendee. {@code FindMeetingQuery} uses it to
+ * touch only the calendars of the people named in a request. For very large requests it may call
+ * {@code addBusyTimes} from several threads at once.
+ */
+public interface BusyTimeSource {
+  /**
+   * Marks the busy time of {@code attendee} that overlaps {@code window} as busy in
+   * {@code availability}.
+   */
+  void addBusyTimes(String attendee, TimeRange window, Availability availability);
+}
@@ -0,0 +1,265 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * CalendarStore holds a calendar that can change one event at a time. Each attendee's merged busy
+ * intervals are kept until one of their events changes, and query results are cached until the
+ * calendar of one of the people they name changes. All methods are synchronized, so a store can
+ * be shared between threads.
+ */
+public final class CalendarStore implements BusyTimeSource {
+  private static final int[] NO_BUSY_TIME = new int[0];
+
+  private final Map<String, AttendeeCalendar> calendars = new HashMap<>();
+  // Queries run while holding this store's lock, so they must not read it from other threads.
+  private final FindMeetingQuery findMeetingQuery =
+      new FindMeetingQuery(FindMeetingQuery.Backend.SWEEP_LINE, Integer.MAX_VALUE);
+
+  // Cached query results, in least recently used order.
+  private final LinkedHashMap<QueryKey, Collection<TimeRange>> results;
+  // The cached queries that name each attendee, so that they can be evicted when the attendee's
+  // calendar changes.
+  private final Map<String, Set<QueryKey>> resultsByAttendee = new HashMap<>();
+
+  /**
+   * Creates an empty store that caches up to {@code maxCachedResults} query results.
+   */
+  public CalendarStore(int maxCachedResults) {
+    this.results = new LinkedHashMap<QueryKey, Collection<TimeRange>>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<QueryKey, Collection<TimeRange>> eldest) {
+        if (size() <= maxCachedResults) {
+          return false;
+        }
+        unlinkResult(eldest.getKey());
+        return true;
+      }
+    };
+  }
+
+  /**
+   * Adds {@code event} to the calendar of each of its attendees.
+   */
+  public synchronized void addEvent(Event event) {
+    for (String attendee : event.getAttendees()) {
+      AttendeeCalendar calendar = calendars.get(attendee);
+      if (calendar == null) {
+        calendar = new AttendeeCalendar();
+        calendars.put(attendee, calendar);
+      }
+      calendar.events(event).add(event);
+      invalidate(attendee, calendar);
+    }
+  }
+
+  /**
+   * Removes one copy of {@code event} from the calendar. Returns false if it was not found.
+   */
+  public synchronized boolean removeEvent(Event event) {
+    boolean removed = false;
+    for (String attendee : event.getAttendees()) {
+      AttendeeCalendar calendar = calendars.get(attendee);
+      if (calendar != null && calendar.events(event).remove(event)) {
+        removed = true;
+        invalidate(attendee, calendar);
+      }
+    }
+    return removed;
+  }
+
+  /**
+   * Replaces {@code oldEvent} with {@code newEvent}. Only the attendees of the two events are
+   * affected. Returns false, without adding {@code newEvent}, if {@code oldEvent} was not found.
+   */
+  public synchronized boolean updateEvent(Event oldEvent, Event newEvent) {
+    if (!removeEvent(oldEvent)) {
+      return false;
+    }
+    addEvent(newEvent);
+    return true;
+  }
+
+  /**
+   * Sets the working hours of {@code attendee}. Time outside of them is treated as busy. Pass null
+   * to let the attendee meet at any time.
+   */
+  public synchronized void setWorkingHours(String attendee, WorkingHours workingHours) {
+    AttendeeCalendar calendar = calendars.get(attendee);
+    if (calendar == null) {
+      calendar = new AttendeeCalendar();
+      calendars.put(attendee, calendar);
+    }
+    calendar.workingHours = workingHours;
+    invalidate(attendee, calendar);
+  }
+
+  /**
+   * Returns the times that satisfy {@code request}, as {@code FindMeetingQuery.query} would. The
+   * result is read-only and may be shared with other callers.
+   */
+  public synchronized Collection<TimeRange> query(MeetingRequest request) {
+    QueryKey key = new QueryKey(request);
+    Collection<TimeRange> result = results.get(key);
+    if (result != null) {
+      return result;
+    }
+
+    result = Collections.unmodifiableList(new ArrayList<>(findMeetingQuery.query(this, request)));
+    results.put(key, result);
+    for (String attendee : key.allAttendees()) {
+      Set<QueryKey> keys = resultsByAttendee.get(attendee);
+      if (keys == null) {
+        keys = new HashSet<>();
+        resultsByAttendee.put(attendee, keys);
+      }
+      keys.add(key);
+    }
+    return result;
+  }
+
+  /**
+   * Returns the number of query results currently cached.
+   */
+  public synchronized int cachedResults() {
+    return results.size();
+  }
+
+  @Override
+  public synchronized void addBusyTimes(
+      String attendee, TimeRange window, Availability availability) {
+    AttendeeCalendar calendar = calendars.get(attendee);
+    if (calendar == null) {
+      return;
+    }
+
+    availability.addAll(calendar.mergedBusyTimes());
+    // Working hours for the first day are already part of the merged busy times.
+    if (calendar.workingHours != null && !TimeRange.WHOLE_DAY.contains(window)) {
+      calendar.workingHours.addBlockedTimes(window, availability);
+    }
+    for (Event event : calendar.recurringEvents) {
+      event.addOccurrences(window.start(), window.end(), availability);
+    }
+  }
+
+  /**
+   * Forgets everything derived from the calendar of {@code attendee}.
+   */
+  private void invalidate(String attendee, AttendeeCalendar calendar) {
+    calendar.mergedBusyTimes = null;
+
+    Set<QueryKey> keys = resultsByAttendee.remove(attendee);
+    if (keys != null) {
+      for (QueryKey key : keys) {
+        results.remove(key);
+        unlinkResult(key);
+      }
+    }
+  }
+
+  /**
+   * Removes {@code key} from the per-attendee lists of cached queries.
+   */
+  private void unlinkResult(QueryKey key) {
+    for (String attendee : key.allAttendees()) {
+      Set<QueryKey> keys = resultsByAttendee.get(attendee);
+      if (keys != null) {
+        keys.remove(key);
+        if (keys.isEmpty()) {
+          resultsByAttendee.remove(attendee);
+        }
+      }
+    }
+  }
+
+  /**
+   * The events of a single attendee, and their merged busy intervals while they are still valid.
+   */
+  private static final class AttendeeCalendar {
+    final List<Event> oneOffEvents = new ArrayList<>();
+    final List<Event> recurringEvents = new ArrayList<>();
+    WorkingHours workingHours;
+    // Null when an event has changed since the intervals were last merged.
+    int[] mergedBusyTimes;
+
+    List<Event> events(Event event) {
+      return event.isRecurring() ? recurringEvents : oneOffEvents;
+    }
+
+    int[] mergedBusyTimes() {
+      if (mergedBusyTimes == null) {
+        SweepLine busyTimes = new SweepLine(oneOffEvents.size() + 2);
+        for (Event event : oneOffEvents) {
+          busyTimes.add(event.getWhen().start(), event.getWhen().end());
+        }
+        if (workingHours != null) {
+          workingHours.addBlockedTimes(TimeRange.WHOLE_DAY, busyTimes);
+        }
+        mergedBusyTimes = busyTimes.size() == 0 ? NO_BUSY_TIME : busyTimes.mergedBusyIntervals();
+      }
+      return mergedBusyTimes;
+    }
+  }
+
+  /**
+   * The parts of a {@code MeetingRequest} that its result depends on.
+   */
+  private static final class QueryKey {
+    private final Set<String> attendees;
+    private final Set<String> optionalAttendees;
+    private final long duration;
+    private final TimeRange window;
+
+    QueryKey(MeetingRequest request) {
+      this.attendees = new HashSet<>(request.getAttendees());
+      this.optionalAttendees = new HashSet<>(request.getOptionalAttendees());
+      this.duration = request.getDuration();
+      this.window = request.getWindow();
+    }
+
+    Set<String> allAttendees() {
+      Set<String> all = new HashSet<>(attendees);
+      all.addAll(optionalAttendees);
+      return all;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(attendees, optionalAttendees, duration, window);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof QueryKey)) {
+        return false;
+      }
+      QueryKey that = (QueryKey) other;
+      return attendees.equals(that.attendees) && optionalAttendees.equals(that.optionalAttendees)
+          && duration == that.duration && window.equals(that.window);
+    }
+  }
+}
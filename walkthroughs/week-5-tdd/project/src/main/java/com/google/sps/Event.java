@@ -14,9 +14,12 @@
 
 package com.google.sps;
 
+import java.util.AbstractSet;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Set;
 
 /**
@@ -26,7 +29,9 @@ import java.util.Set;
 public final class Event {
   private final String title;
   private final TimeRange when;
-  private final Set<String> attendees = new HashSet<>();
+  // Sorted, distinct IDs from the global {@code AttendeeDictionary}.
+  private final int[] attendees;
+  private final Recurrence recurrence;
 
   /**
    * Creates a new event.
@@ -36,6 +41,18 @@ public final class Event {
    * @param attendees The collection of people attending the event. Must be non-null.
    */
   public Event(String title, TimeRange when, Collection<String> attendees) {
+    this(title, when, attendees, null);
+  }
+
+  /**
+   * Creates a new event that repeats.
+   *
+   * @param title The human-readable name for the event. Must be non-null.
+   * @param when The time when the first occurrence takes place. Must be non-null.
+   * @param attendees The collection of people attending the event. Must be non-null.
+   * @param recurrence How the event repeats, or null if it only happens once.
+   */
+  public Event(String title, TimeRange when, Collection<String> attendees, Recurrence recurrence) {
     if (title == null) {
       throw new IllegalArgumentException("title cannot be null");
     }
@@ -50,7 +67,8 @@ public final class Event {
 
     this.title = title;
     this.when = when;
-    this.attendees.addAll(attendees);
+    this.attendees = AttendeeDictionary.global().internAll(attendees);
+    this.recurrence = recurrence;
   }
 
   /**
@@ -67,13 +85,45 @@ public final class Event {
     return when;
   }
 
+  /**
+   * Returns how this event repeats, or null if it only happens once.
+   */
+  public Recurrence getRecurrence() {
+    return recurrence;
+  }
+
+  /**
+   * Returns whether this event has more than the occurrence returned by {@code getWhen()}.
+   */
+  public boolean isRecurring() {
+    return recurrence != null;
+  }
+
   /**
    * Returns a read-only set of required attendees for this event.
    */
   public Set<String> getAttendees() {
-    // Return the attendees as an unmodifiable set so that the caller can't change our
-    // internal data.
-    return Collections.unmodifiableSet(attendees);
+    // Return a read-only view over the IDs so that the caller can't change our internal data.
+    return new AttendeeSet(attendees);
+  }
+
+  /**
+   * Returns the sorted IDs of this event's attendees in the global {@code AttendeeDictionary}.
+   * The array is shared and must not be modified.
+   */
+  int[] getAttendeeIds() {
+    return attendees;
+  }
+
+  /**
+   * Marks every occurrence of this event that overlaps {@code [windowStart, windowEnd)} as busy.
+   */
+  void addOccurrences(int windowStart, int windowEnd, Availability busyTimes) {
+    if (recurrence != null) {
+      recurrence.addOccurrences(when, windowStart, windowEnd, busyTimes);
+    } else if (when.start() < windowEnd && when.end() > windowStart) {
+      busyTimes.add(when.start(), when.end());
+    }
   }
 
   @Override
@@ -89,8 +139,51 @@ public final class Event {
   }
 
   private static boolean equals(Event a, Event b) {
-    // {@code attendees} must be a set for equals to work as expected. According to the {@code Set}
-    // interface documentation, equals will check for set-equality across all set implementations.
-    return a.title.equals(b.title) && a.when.equals(b.when) && a.attendees.equals(b.attendees);
+    // Both attendee arrays are sorted and distinct, so comparing them checks set-equality.
+    return a.title.equals(b.title) && a.when.equals(b.when)
+        && Arrays.equals(a.attendees, b.attendees) && Objects.equals(a.recurrence, b.recurrence);
+  }
+
+  /** A read-only set of attendee names backed by a sorted array of IDs. */
+  private static final class AttendeeSet extends AbstractSet<String> {
+    private final int[] ids;
+
+    AttendeeSet(int[] ids) {
+      this.ids = ids;
+    }
+
+    @Override
+    public boolean contains(Object name) {
+      if (!(name instanceof String)) {
+        return false;
+      }
+      int id = AttendeeDictionary.global().find((String) name);
+      return id >= 0 && Arrays.binarySearch(ids, id) >= 0;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+      return new Iterator<String>() {
+        private int next = 0;
+
+        @Override
+        public boolean hasNext() {
+          return next < ids.length;
+        }
+
+        @Override
+        public String next() {
+          if (next >= ids.length) {
+            throw new NoSuchElementException();
+          }
+          return AttendeeDictionary.global().name(ids[next++]);
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      return ids.length;
+    }
   }
 }
@@ -14,128 +14,217 @@
 
 package com.google.sps;
 
-import java.util.Collection;
 import java.util.ArrayList;
-import java.util.List;
-import java.util.Collections;
-import java.util.HashSet;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
 
 /**
 * The FindMeetingQuery class represents a meeting that we want to schedule given
 * the TimeRanges of events. 
 */
 public final class FindMeetingQuery {
-  
   /**
-  * Returns a sorted ArrayList of TimeRanges that represent the times a group of attendees
-  * can meet.
+   * The data structures that busy times can be collected into.
+   */
+  public enum Backend {
+    /** Sorted start/end boundaries. Cost grows with the number of busy intervals. */
+    SWEEP_LINE,
+    /** One bit per minute of the day. Cost is fixed per attendee regardless of their events. */
+    MINUTE_BITMAP
+  }
+
+  /**
+   * The number of attendees from which busy times read from a {@code BusyTimeSource} are merged
+   * in parallel by default.
+   */
+  public static final int DEFAULT_PARALLEL_THRESHOLD = 1000;
+
+  private final Backend backend;
+  private final int parallelThreshold;
+
+  public FindMeetingQuery() {
+    this(Backend.SWEEP_LINE);
+  }
+
+  public FindMeetingQuery(Backend backend) {
+    this(backend, DEFAULT_PARALLEL_THRESHOLD);
+  }
+
+  /**
+   * Creates a query that merges the busy times of requests naming at least
+   * {@code parallelThreshold} attendees on the common fork/join pool. Use
+   * {@code Integer.MAX_VALUE} to always merge on the calling thread.
+   */
+  public FindMeetingQuery(Backend backend, int parallelThreshold) {
+    this.backend = backend;
+    this.parallelThreshold = parallelThreshold;
+  }
+
+  /**
+  * Takes in a collection of Events and a MeetingRequest and is expected to return
+  * a collection of TimeRanges in which the MeetingRequest can be satisfied given the
+  * the constraints posed by the attendees' events. 
   */
-  private ArrayList<TimeRange> getAvailability(ArrayList<TimeRange> busyTimesForChosenAttendees) {
-    TimeRange currentBusyTime = busyTimesForChosenAttendees.get(0);
-    ArrayList<TimeRange> busyTimesForChosenAttendeesNoOverlaps = new ArrayList<>();
-    // Stores all TimeRanges in which attendees can meet.
-    ArrayList<TimeRange> freeTimesForChosenAttendees = new ArrayList<>();
-    
-    for (TimeRange time : busyTimesForChosenAttendees) {
-      // Checks whether our attendees have overlapping TimeRanges.
-      if (time.overlaps(currentBusyTime)) {
-        int start = currentBusyTime.start();
-        currentBusyTime = TimeRange.fromStartEnd(start, Math.max(currentBusyTime.end(), time.end()), false);
-      } else {
-        // Adds TimeRange when they don't conflict with each other.
-        busyTimesForChosenAttendeesNoOverlaps.add(currentBusyTime);
-        currentBusyTime = time;
+  public Collection<TimeRange> query(Collection<Event> events, MeetingRequest request) {
+    TimeRange window = request.getWindow();
+    if (request.getDuration() > window.duration()) {
+      return Arrays.asList();
+    }
+    BitSet attendees = request.getAttendeeBits();
+    BitSet optionalAttendees = request.getOptionalAttendeeBits();
+
+    // Busy times of the mandatory attendees only.
+    Availability requiredBusyTimes = newAvailability(window, events.size());
+    // Busy times of both mandatory and optional attendees.
+    Availability allBusyTimes = newAvailability(window, events.size());
+
+    for (Event event : events) {
+      boolean hasRequiredAttendee = false;
+      boolean hasOptionalAttendee = false;
+      for (int attendee : event.getAttendeeIds()) {
+        hasRequiredAttendee |= attendees.get(attendee);
+        hasOptionalAttendee |= optionalAttendees.get(attendee);
+        if (hasRequiredAttendee) {
+          // A mandatory attendee already blocks both calendars.
+          break;
         }
+      }
+      // Recurring events are only expanded over the requested window.
+      if (hasRequiredAttendee) {
+        event.addOccurrences(window.start(), window.end(), requiredBusyTimes);
+      }
+      if (hasRequiredAttendee || hasOptionalAttendee) {
+        event.addOccurrences(window.start(), window.end(), allBusyTimes);
+      }
+    }
+
+    return chooseFreeTimes(requiredBusyTimes, allBusyTimes, request);
+  }
+
+  /**
+   * Same as {@link #query(Collection, MeetingRequest)}, but reads busy times from a prebuilt
+   * index. Only the calendars of the people named in {@code request} are touched.
+   */
+  public Collection<TimeRange> query(BusyTimeSource index, MeetingRequest request) {
+    TimeRange window = request.getWindow();
+    if (request.getDuration() > window.duration()) {
+      return Arrays.asList();
     }
-    // Adding last one, we now have the full calendar of not available time ranges. 
-    busyTimesForChosenAttendeesNoOverlaps.add(currentBusyTime);
-    TimeRange first = busyTimesForChosenAttendeesNoOverlaps.get(0);
-    TimeRange last = busyTimesForChosenAttendeesNoOverlaps.get(busyTimesForChosenAttendeesNoOverlaps.size() - 1);
-    
-    // Creates TimeRanges that include the start/end of the day.
-    TimeRange firstFreeTimeRange = TimeRange.fromStartEnd(TimeRange.START_OF_DAY, first.start(), false);
-    TimeRange lastFreeTimeRange = TimeRange.fromStartEnd(last.end(), TimeRange.END_OF_DAY, true);
-    
-    // Takes out TimeRanges that do not last enough time. 
-    if (firstFreeTimeRange.duration() >= request.duration()) {
-      freeTimeForChosenAttendees.add(firstFreeTimeRange);
+    int attendeeCount = request.getAttendees().size() + request.getOptionalAttendees().size();
+    Availability requiredBusyTimes = newAvailability(window, request.getAttendees().size());
+    Availability allBusyTimes = newAvailability(window, attendeeCount);
+
+    if (attendeeCount >= parallelThreshold) {
+      // Huge requests merge each group of attendees in parallel, and the two groups are then
+      // combined from their already merged busy times.
+      int[] requiredMerged = ParallelBusyMerge.merge(
+          index, new ArrayList<>(request.getAttendees()), window);
+      int[] optionalMerged = ParallelBusyMerge.merge(
+          index, new ArrayList<>(request.getOptionalAttendees()), window);
+      requiredBusyTimes.addAll(requiredMerged);
+      allBusyTimes.addAll(requiredMerged);
+      allBusyTimes.addAll(optionalMerged);
+      return chooseFreeTimes(requiredBusyTimes, allBusyTimes, request);
     }
-    if (lastFreeTimeRange.duration() >= request.duration()) {
-      freeTimesForChosenAttendees.add(lastFreeTimeRange);
+
+    for (String attendee : request.getAttendees()) {
+      index.addBusyTimes(attendee, window, requiredBusyTimes);
+      index.addBusyTimes(attendee, window, allBusyTimes);
     }
-    // Checks whether we have enough TimeRanges to iterate through
-    for (int j = 0; j < busyTimesForChosenAttendeesNoOverlaps.size() - 2; j++) {
-      TimeRange freeTime = TimeRange.fromStartEnd(busyTimesForChosenAttendeesNoOverlaps.get(j).end(), busyTimesForChosenAttendeesNoOverlaps.get(j + 1).start(), false);
-      if (freeTime.duration() >= request.duration()) {
-        freeTimesForChosenAttendees.add(freeTime);
-      }
+    for (String attendee : request.getOptionalAttendees()) {
+      index.addBusyTimes(attendee, window, allBusyTimes);
     }
-    Collections.sort(freeTimesForChosenAttendees, TimeRange.ORDER_BY_START);
-    return freeTimesForChosenAttendees;                              
+
+    return chooseFreeTimes(requiredBusyTimes, allBusyTimes, request);
   }
 
   /**
-  * Takes in a collection of Events and a MeetingRequest and is expected to return
-  * a collection of TimeRanges in which the MeetingRequest can be satisfied given the
-  * the constraints posed by the attendees' events. 
-  */
-  public Collection<TimeRange> query(Collection<Event> events, MeetingRequest request) { 
-    // Stores all TimeRanges of mandatory attendees with no repetitions.
-    Collection<TimeRange> busyTimesForRequiredAttendees = new HashSet<>();
-    // Stores all TimeRanges of optional attendees with no repetitions.
-    Collection<TimeRange> busyTimesForOptionalAttendees = new HashSet<>();
+   * Returns the times at which the largest possible number of optional attendees can join, among
+   * the times that work for every mandatory attendee. Unlike {@code query}, this does not give up
+   * on all optional attendees when a single one of them is unavailable.
+   */
+  public Collection<TimeRange> queryMaximizingOptionalAttendees(
+      Collection<Event> events, MeetingRequest request) {
+    return queryMaximizingOptionalAttendees(AttendeeBusyIndex.fromEvents(events), request);
+  }
 
-    if (request.getDuration() > TimeRange.WHOLE_DAY.duration()) {
+  /**
+   * Same as {@link #queryMaximizingOptionalAttendees(Collection, MeetingRequest)}, but reads busy
+   * times from a prebuilt index.
+   */
+  public Collection<TimeRange> queryMaximizingOptionalAttendees(
+      BusyTimeSource index, MeetingRequest request) {
+    if (request.getDuration() > request.getWindow().duration()) {
       return Arrays.asList();
     }
-    // No events to conflict with.
-    if (events.size() == 0) {
-      return Arrays.asList(TimeRange.WHOLE_DAY);
+
+    List<TimeRange> requiredFreeTimes = requiredFreeTimes(index, request);
+    OptionalAttendeeSweep optionalSweep = optionalAttendeeSweep(index, request);
+
+    // Without mandatory attendees, a time that no optional attendee can make is not a meeting.
+    int optionalAttendees = request.getOptionalAttendees().size();
+    int minimumAttendees = request.getAttendees().isEmpty() && optionalAttendees > 0 ? 1 : 0;
+    return optionalSweep.bestSlots(requiredFreeTimes, optionalAttendees, minimumAttendees);
+  }
+
+  /**
+   * Returns up to {@code ranker}'s k best meeting times for {@code request}, best first. Each
+   * result is exactly as long as the meeting. Only times that work for every mandatory attendee
+   * are considered.
+   */
+  public List<TimeRange> queryRanked(
+      BusyTimeSource index, MeetingRequest request, SlotRanker ranker) {
+    TimeRange window = request.getWindow();
+    if (request.getDuration() > window.duration()) {
+      return Arrays.asList();
     }
-    ArrayList<String> attendeesWithoutEvents = new ArrayList<>(request.getAttendees());
-    ArrayList<String> optionalAttendeesWithoutEvents = new ArrayList<>(request.getOptionalAttendees());
-    
-    for (Event event : events) {
-      for (String attendee : event.getAttendees()) {
-        if (request.getAttendees().contains(attendee)) {
-          // Adds TimeRange if any mandatory attendee attends this event.
-          busyTimesForRequiredAttendees.add(event.getWhen());
-          // Deletes from list when attendee appears in an Event.
-          attendeesWithoutEvents.remove(attendee);
-        }
-        if (request.getOptionalAttendees().contains(attendee)) {
-          busyTimesForOptionalAttendees.add(event.getWhen());
-          optionalAttendeesWithoutEvents.remove(attendee);
-        }
-      }
+
+    return ranker.rank(window, requiredFreeTimes(index, request),
+        optionalAttendeeSweep(index, request), request.getOptionalAttendees().size(),
+        (int) request.getDuration());
+  }
+
+  private List<TimeRange> requiredFreeTimes(BusyTimeSource index, MeetingRequest request) {
+    TimeRange window = request.getWindow();
+    Availability requiredBusyTimes = newAvailability(window, request.getAttendees().size());
+    for (String attendee : request.getAttendees()) {
+      index.addBusyTimes(attendee, window, requiredBusyTimes);
     }
-    // Transforming collections of TimeRanges into an ArrayList to allow indexing.
-    ArrayList<TimeRange> busyTimesForRequiredAttendeesList = new ArrayList<>(busyTimesForRequiredAttendees);
-    ArrayList<TimeRange> busyTimesForOptionalAttendeesList = new ArrayList<>(busyTimesForOptionalAttendees);
-    Collections.sort(busyTimesForRequiredAttendeesList, TimeRange.ORDER_BY_START);
-    Collections.sort(busyTimesForOptionalAttendeesList, TimeRange.ORDER_BY_START);
-
-    // No events conflict the schedules of the requested attendees. 
-    if (attendeesWithoutEvents.size() == request.getAttendees().size() && optionalAttendeesWithoutEvents.size() == request.getOptionalAttendees().size()) {
-      return Arrays.asList(TimeRange.WHOLE_DAY);
+    return requiredBusyTimes.freeRanges(window, request.getDuration());
+  }
+
+  private static OptionalAttendeeSweep optionalAttendeeSweep(
+      BusyTimeSource index, MeetingRequest request) {
+    OptionalAttendeeSweep optionalSweep = new OptionalAttendeeSweep(request.getDuration());
+    for (String attendee : request.getOptionalAttendees()) {
+      SweepLine busyTimes = new SweepLine(4);
+      index.addBusyTimes(attendee, request.getWindow(), busyTimes);
+      optionalSweep.addAttendee(busyTimes.mergedBusyIntervals());
     }
-    // Checks whether mandatory attendees have no restrictions in their schedules.
-    if (busyTimesForRequiredAttendeesList.isEmpty()) {
-      ArrayList<TimeRange> optionalAttendeesCalendar = getAvailability(busyTimesForOptionalAttendeesList);
-      return optionalAttendeesCalendar;
-    } else {
-      ArrayList<TimeRange> requiredAttendeesCalendar = getAvailability(busyTimesForRequiredAttendeesList);
-      ArrayList<TimeRange> requiredAndOptionalAttendeesCalendar = new ArrayList<>(requiredAttendeesCalendar);
-
-      for (TimeRange busyTimeForOptionalAttendee : busyTimesForOptionalAttendeesList) {
-        for (TimeRange freeTimeForRequiredAttendee : requiredAttendeesCalendar) {
-          if (freeTimeForRequiredAttendee.overlaps(busyTimeForOptionalAttendee)) {
-            requiredAndOptionalAttendeesCalendar.remove(freeTimeForRequiredAttendee);
-          }
-        }
-      }
-      requiredAndOptionalAttendeesCalendar.isEmpty() ? return requiredAttendeesCalendar : return requiredAndOptionalAttendeesCalendar;
+    return optionalSweep;
+  }
+
+  private Availability newAvailability(TimeRange window, int expectedIntervals) {
+    // The bitmap only covers one day, so longer windows always use the sweep line.
+    if (backend == Backend.MINUTE_BITMAP && TimeRange.WHOLE_DAY.contains(window)) {
+      return new MinuteBitmap();
+    }
+    return new SweepLine(expectedIntervals);
+  }
+
+  /**
+  * Optional attendees are only considered if at least one time works for everybody. Without
+  * mandatory attendees, the optional attendees' availability is the answer.
+  */
+  private static List<TimeRange> chooseFreeTimes(
+      Availability requiredBusyTimes, Availability allBusyTimes, MeetingRequest request) {
+    TimeRange window = request.getWindow();
+    List<TimeRange> freeTimesForEveryone = allBusyTimes.freeRanges(window, request.getDuration());
+    if (!freeTimesForEveryone.isEmpty() || request.getAttendees().isEmpty()) {
+      return freeTimesForEveryone;
     }
+    return requiredBusyTimes.freeRanges(window, request.getDuration());
   }
 }
@@ -16,6 +16,7 @@ package com.google.sps;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
@@ -39,6 +40,13 @@ public final class MeetingRequest {
   // The duration of the meeting in minutes.
   private final long duration;
 
+  // The span of time to look for meeting times in. Null means the first day.
+  private TimeRange window;
+
+  // The attendees as bits indexed by their ID in the global {@code AttendeeDictionary}. Built on
+  // first use and kept out of the JSON form, which stays name based.
+  private transient volatile AttendeeBits attendeeBits;
+
   public MeetingRequest(Collection<String> attendees, long duration) {
     this.duration = duration;
     this.attendees.addAll(attendees);
@@ -64,7 +72,76 @@ public final class MeetingRequest {
   public void addOptionalAttendee(String attendee) {
     if (!attendees.contains(attendee)) {
       optional_attendees.add(attendee);
+      attendeeBits = null;
+    }
+  }
+
+  /**
+   * Returns the required attendees as a bitset of their IDs in the global
+   * {@code AttendeeDictionary}. The bitset is shared and must not be modified.
+   */
+  BitSet getAttendeeBits() {
+    return attendeeBits().required;
+  }
+
+  /**
+   * Returns the optional attendees as a bitset of their IDs in the global
+   * {@code AttendeeDictionary}. The bitset is shared and must not be modified.
+   */
+  BitSet getOptionalAttendeeBits() {
+    return attendeeBits().optional;
+  }
+
+  private AttendeeBits attendeeBits() {
+    AttendeeDictionary dictionary = AttendeeDictionary.global();
+    AttendeeBits bits = attendeeBits;
+    // Names that no event has used yet have no ID. They are looked up again once the dictionary
+    // grows, in case an event naming them has been created since.
+    if (bits == null || (bits.unknownNames > 0 && bits.dictionarySize != dictionary.size())) {
+      bits = new AttendeeBits(dictionary, attendees, optional_attendees);
+      attendeeBits = bits;
     }
+    return bits;
+  }
+
+  private static final class AttendeeBits {
+    final BitSet required = new BitSet();
+    final BitSet optional = new BitSet();
+    final int dictionarySize;
+    int unknownNames;
+
+    AttendeeBits(AttendeeDictionary dictionary, Collection<String> required,
+        Collection<String> optional) {
+      // Read the size first so that names interned while the bits are built are looked up again.
+      this.dictionarySize = dictionary.size();
+      set(dictionary, required, this.required);
+      set(dictionary, optional, this.optional);
+    }
+
+    private void set(AttendeeDictionary dictionary, Collection<String> names, BitSet bits) {
+      for (String name : names) {
+        int id = dictionary.find(name);
+        if (id >= 0) {
+          bits.set(id);
+        } else {
+          unknownNames++;
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the span of time to look for meeting times in. Defaults to {@code TimeRange.WHOLE_DAY}.
+   */
+  public TimeRange getWindow() {
+    return window == null ? TimeRange.WHOLE_DAY : window;
+  }
+
+  /**
+   * Sets the span of time to look for meeting times in. It may cover several days.
+   */
+  public void setWindow(TimeRange window) {
+    this.window = window;
   }
 
   /**
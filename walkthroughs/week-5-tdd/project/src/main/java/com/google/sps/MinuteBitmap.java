@@ -0,0 +1,138 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * MinuteBitmap stores busy time as one bit per minute of the day. A whole day fits in 23 words, so
+ * combining the calendars of many attendees is a handful of word-wide ORs and finding free gaps is
+ * a scan for runs of zero bits.
+ */
+public final class MinuteBitmap implements Availability {
+  private static final int MINUTES_PER_DAY = TimeRange.WHOLE_DAY.duration();
+  private static final int WORDS = (MINUTES_PER_DAY + Long.SIZE - 1) / Long.SIZE;
+
+  private final long[] words = new long[WORDS];
+
+  /**
+   * Marks {@code [start, end)} as busy. Minutes outside of the day are ignored.
+   */
+  @Override
+  public void add(int start, int end) {
+    start = Math.max(start, TimeRange.START_OF_DAY);
+    end = Math.min(end, MINUTES_PER_DAY);
+    if (end <= start) {
+      return;
+    }
+
+    int startWord = start >>> 6;
+    int endWord = (end - 1) >>> 6;
+    // Shifts only use the low six bits of the distance, which is the offset within the word.
+    long startMask = -1L << start;
+    long endMask = -1L >>> -end;
+    if (startWord == endWord) {
+      words[startWord] |= startMask & endMask;
+      return;
+    }
+
+    words[startWord] |= startMask;
+    for (int word = startWord + 1; word < endWord; word++) {
+      words[word] = -1L;
+    }
+    words[endWord] |= endMask;
+  }
+
+  @Override
+  public void addAll(int[] packed) {
+    for (int k = 0; k + 1 < packed.length; k += 2) {
+      add(packed[k], packed[k + 1]);
+    }
+  }
+
+  /**
+   * Marks every minute that is busy in {@code other} as busy in this bitmap.
+   */
+  public void or(MinuteBitmap other) {
+    for (int word = 0; word < WORDS; word++) {
+      words[word] |= other.words[word];
+    }
+  }
+
+  /**
+   * Returns whether {@code minute} is busy.
+   */
+  public boolean isBusy(int minute) {
+    return (words[minute >>> 6] & (1L << minute)) != 0;
+  }
+
+  /**
+   * Returns the free gaps within {@code window} that last at least {@code duration} minutes. The
+   * bitmap only covers one day, so {@code window} must be within {@code TimeRange.WHOLE_DAY}.
+   */
+  @Override
+  public List<TimeRange> freeRanges(TimeRange window, long duration) {
+    if (!TimeRange.WHOLE_DAY.contains(window)) {
+      throw new IllegalArgumentException("window must be within the first day");
+    }
+
+    List<TimeRange> free = new ArrayList<>();
+    int windowEnd = window.end();
+    int minute = window.start();
+    while (minute < windowEnd) {
+      int freeStart = nextFreeMinute(minute);
+      if (freeStart >= windowEnd) {
+        break;
+      }
+      int freeEnd = Math.min(nextBusyMinute(freeStart), windowEnd);
+      if (freeEnd - freeStart >= duration) {
+        free.add(TimeRange.fromStartEnd(freeStart, freeEnd, false));
+      }
+      minute = freeEnd;
+    }
+    return free;
+  }
+
+  /**
+   * Returns the first busy minute at or after {@code from}, or the end of the day if there is none.
+   */
+  private int nextBusyMinute(int from) {
+    int word = from >>> 6;
+    long bits = words[word] & (-1L << from);
+    while (bits == 0) {
+      if (++word == WORDS) {
+        return MINUTES_PER_DAY;
+      }
+      bits = words[word];
+    }
+    return Math.min(word * Long.SIZE + Long.numberOfTrailingZeros(bits), MINUTES_PER_DAY);
+  }
+
+  /**
+   * Returns the first free minute at or after {@code from}, or the end of the day if there is none.
+   */
+  private int nextFreeMinute(int from) {
+    int word = from >>> 6;
+    long bits = ~words[word] & (-1L << from);
+    while (bits == 0) {
+      if (++word == WORDS) {
+        return MINUTES_PER_DAY;
+      }
+      bits = ~words[word];
+    }
+    return Math.min(word * Long.SIZE + Long.numberOfTrailingZeros(bits), MINUTES_PER_DAY);
+  }
+}
@@ -0,0 +1,189 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * OptionalAttendeeSweep finds the meeting times that the largest number of optional attendees can
+ * join, restricted to the gaps in which every mandatory attendee is free.
+ *
+ * <p>Instead of checking every candidate time against every optional attendee, each busy interval
+ * {@code [start, end)} is turned into the range of meeting starts it rules out,
+ * {@code [start - duration + 1, end)}. The number of optional attendees who cannot come to a
+ * meeting starting at {@code t} is then the number of those ranges covering {@code t}, which a
+ * single sweep over the sorted boundaries finds for every {@code t} at once.
+ */
+final class OptionalAttendeeSweep {
+  private final int duration;
+  private int[] blockedStarts = new int[16];
+  private int[] blockedEnds = new int[16];
+  private int size;
+  private boolean sorted;
+
+  OptionalAttendeeSweep(long duration) {
+    // A meeting with no duration still needs its attendee at its start minute.
+    this.duration = (int) Math.max(duration, 1);
+  }
+
+  /**
+   * Adds the busy time of one optional attendee, packed as merged {@code start, end} pairs sorted
+   * by start.
+   */
+  void addAttendee(int[] mergedBusyTimes) {
+    int blockStart = 0;
+    int blockEnd = 0;
+    boolean open = false;
+    for (int k = 0; k + 1 < mergedBusyTimes.length; k += 2) {
+      int start = mergedBusyTimes[k] - duration + 1;
+      int end = mergedBusyTimes[k + 1];
+      // Widening can make the intervals of one attendee overlap. They are merged so that the
+      // attendee is only counted once.
+      if (open && start <= blockEnd) {
+        blockEnd = Math.max(blockEnd, end);
+        continue;
+      }
+      if (open) {
+        addBlock(blockStart, blockEnd);
+      }
+      blockStart = start;
+      blockEnd = end;
+      open = true;
+    }
+    if (open) {
+      addBlock(blockStart, blockEnd);
+    }
+  }
+
+  /**
+   * Returns the slots within {@code requiredFreeTimes} that the most optional attendees can join.
+   * Each slot is a range in which a meeting of the requested duration can be placed anywhere.
+   * {@code requiredFreeTimes} must be sorted by start and must not overlap.
+   *
+   * @param minimumAttendees If fewer optional attendees than this can join at the best time, no
+   *     slots are returned.
+   */
+  List<TimeRange> bestSlots(List<TimeRange> requiredFreeTimes, int optionalAttendees,
+      int minimumAttendees) {
+    sort();
+
+    // Runs of meeting starts, packed as [first, last + 1) pairs, sharing the best coverage so far.
+    int[] runs = new int[8];
+    int runCount = 0;
+    int bestBlocked = Integer.MAX_VALUE;
+
+    int blocked = 0;
+    int i = 0;
+    int j = 0;
+    for (TimeRange free : requiredFreeTimes) {
+      int t = free.start();
+      int validEnd = free.end() - duration + 1;
+      while (t < validEnd) {
+        // Apply every boundary up to and including t.
+        while (i < size && blockedStarts[i] <= t) {
+          blocked++;
+          i++;
+        }
+        while (j < size && blockedEnds[j] <= t) {
+          blocked--;
+          j++;
+        }
+
+        int next = validEnd;
+        if (i < size) {
+          next = Math.min(next, blockedStarts[i]);
+        }
+        if (j < size) {
+          next = Math.min(next, blockedEnds[j]);
+        }
+
+        if (blocked < bestBlocked) {
+          bestBlocked = blocked;
+          runCount = 0;
+        }
+        if (blocked == bestBlocked) {
+          if (runCount > 0 && runs[runCount - 1] == t) {
+            runs[runCount - 1] = next;
+          } else {
+            if (runCount == runs.length) {
+              runs = Arrays.copyOf(runs, runCount * 2);
+            }
+            runs[runCount] = t;
+            runs[runCount + 1] = next;
+            runCount += 2;
+          }
+        }
+        t = next;
+      }
+    }
+
+    List<TimeRange> slots = new ArrayList<>(runCount / 2);
+    if (optionalAttendees - bestBlocked < minimumAttendees) {
+      return slots;
+    }
+    for (int k = 0; k < runCount; k += 2) {
+      slots.add(TimeRange.fromStartEnd(runs[k], runs[k + 1] - 1 + duration, false));
+    }
+    return slots;
+  }
+
+  /**
+   * Returns the number of optional attendees who cannot join a meeting starting at {@code start}.
+   * This is a binary search, so scattered candidate times can be checked without a full sweep.
+   */
+  int blockedAt(int start) {
+    sort();
+    return countAtMost(blockedStarts, start) - countAtMost(blockedEnds, start);
+  }
+
+  private void sort() {
+    if (!sorted) {
+      Arrays.sort(blockedStarts, 0, size);
+      Arrays.sort(blockedEnds, 0, size);
+      sorted = true;
+    }
+  }
+
+  /**
+   * Returns how many of the first {@code size} values of sorted {@code values} are at most
+   * {@code limit}.
+   */
+  private int countAtMost(int[] values, int limit) {
+    int low = 0;
+    int high = size;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (values[middle] <= limit) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  private void addBlock(int start, int end) {
+    if (size == blockedStarts.length) {
+      blockedStarts = Arrays.copyOf(blockedStarts, size * 2);
+      blockedEnds = Arrays.copyOf(blockedEnds, size * 2);
+    }
+    blockedStarts[size] = start;
+    blockedEnds[size] = end;
+    size++;
+    sorted = false;
+  }
+}
@@ -0,0 +1,119 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+/**
+ * Static helpers for time ranges packed into a single {@code long}: the start in the high 32 bits
+ * and the duration in the low 32 bits. They mirror the methods of {@code TimeRange} so that hot
+ * loops can work on ranges without allocating an object per range.
+ *
+ * <p>Because the start occupies the high bits, sorting packed ranges as plain {@code long}s orders
+ * them by start, and by duration when the starts are equal.
+ */
+public final class PackedTimeRange {
+  private static final long DURATION_MASK = 0xFFFFFFFFL;
+
+  private PackedTimeRange() {
+    // Disallow instances.
+  }
+
+  /**
+   * Packs a range starting at {@code start} with a duration equal to {@code duration}.
+   */
+  public static long fromStartDuration(int start, int duration) {
+    return ((long) start << 32) | (duration & DURATION_MASK);
+  }
+
+  /**
+   * Packs the range from {@code start} (inclusive) to {@code end} (exclusive).
+   */
+  public static long fromStartEnd(int start, int end) {
+    return fromStartDuration(start, end - start);
+  }
+
+  /**
+   * Packs {@code range}.
+   */
+  public static long of(TimeRange range) {
+    return fromStartDuration(range.start(), range.duration());
+  }
+
+  /**
+   * Returns the start of a packed range in minutes.
+   */
+  public static int start(long range) {
+    return (int) (range >> 32);
+  }
+
+  /**
+   * Returns the number of minutes between the start and end of a packed range.
+   */
+  public static int duration(long range) {
+    return (int) range;
+  }
+
+  /**
+   * Returns the end of a packed range. This ending value is the closing exclusive bound.
+   */
+  public static int end(long range) {
+    return start(range) + duration(range);
+  }
+
+  /**
+   * Checks if two packed ranges overlap, with the same meaning as {@code TimeRange.overlaps}.
+   */
+  public static boolean overlaps(long a, long b) {
+    return contains(a, start(b)) || contains(b, start(a));
+  }
+
+  /**
+   * Checks if packed range {@code range} contains {@code point}, with the same meaning as
+   * {@code TimeRange.contains(int)}.
+   */
+  public static boolean contains(long range, int point) {
+    return duration(range) > 0 && point >= start(range) && point < end(range);
+  }
+
+  /**
+   * Checks if packed range {@code a} completely contains packed range {@code b}, with the same
+   * meaning as {@code TimeRange.contains(TimeRange)}.
+   */
+  public static boolean contains(long a, long b) {
+    if (duration(a) <= 0) {
+      return false;
+    }
+
+    if (duration(b) <= 0) {
+      return contains(a, start(b));
+    }
+
+    return contains(a, start(b)) && contains(a, end(b) - 1);
+  }
+
+  /**
+   * Returns the smallest packed range that covers both {@code a} and {@code b}. When the two
+   * ranges overlap or touch, this is their union.
+   */
+  public static long merge(long a, long b) {
+    return fromStartEnd(Math.min(start(a), start(b)), Math.max(end(a), end(b)));
+  }
+
+  /**
+   * Unpacks a range into a {@code TimeRange}.
+   */
+  public static TimeRange toTimeRange(long range) {
+    return TimeRange.fromStartDuration(start(range), duration(range));
+  }
+}
@@ -0,0 +1,125 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * ParallelBusyMerge merges the busy time of a very large group of attendees on a fork/join pool.
+ * The attendees are split into chunks whose busy times are merged independently, and the sorted
+ * partial results are then combined with a single k-way merge.
+ */
+final class ParallelBusyMerge {
+  // The number of attendees that one task merges on its own before the work is split further.
+  private static final int ATTENDEES_PER_TASK = 256;
+
+  private ParallelBusyMerge() {
+    // Disallow instances.
+  }
+
+  /**
+   * Returns the busy time of all {@code attendees} within {@code window}, merged into disjoint
+   * blocks sorted by start and packed as {@code start, end} pairs. {@code source} is read from
+   * several threads at once.
+   */
+  static int[] merge(BusyTimeSource source, List<String> attendees, TimeRange window) {
+    if (attendees.isEmpty()) {
+      return new int[0];
+    }
+    List<int[]> partials =
+        ForkJoinPool.commonPool().invoke(new MergeTask(source, attendees, window));
+    return kWayMerge(partials);
+  }
+
+  /**
+   * Merges lists of disjoint, sorted {@code start, end} pairs into one such list. Blocks that
+   * overlap or touch across lists are joined.
+   */
+  static int[] kWayMerge(List<int[]> partials) {
+    int total = 0;
+    for (int[] partial : partials) {
+      total += partial.length;
+    }
+    int[] merged = new int[total];
+    int count = 0;
+
+    // Each entry is {index of the partial list, position of its next block}, ordered by the start
+    // of that block.
+    PriorityQueue<int[]> heads = new PriorityQueue<>(Math.max(partials.size(), 1),
+        (a, b) -> Integer.compare(partials.get(a[0])[a[1]], partials.get(b[0])[b[1]]));
+    for (int k = 0; k < partials.size(); k++) {
+      if (partials.get(k).length > 0) {
+        heads.add(new int[] {k, 0});
+      }
+    }
+
+    while (!heads.isEmpty()) {
+      int[] head = heads.poll();
+      int[] partial = partials.get(head[0]);
+      int start = partial[head[1]];
+      int end = partial[head[1] + 1];
+      if (count > 0 && start <= merged[count - 1]) {
+        merged[count - 1] = Math.max(merged[count - 1], end);
+      } else {
+        merged[count] = start;
+        merged[count + 1] = end;
+        count += 2;
+      }
+
+      head[1] += 2;
+      if (head[1] < partial.length) {
+        heads.add(head);
+      }
+    }
+    return Arrays.copyOf(merged, count);
+  }
+
+  private static final class MergeTask extends RecursiveTask<List<int[]>> {
+    private final BusyTimeSource source;
+    private final List<String> attendees;
+    private final TimeRange window;
+
+    MergeTask(BusyTimeSource source, List<String> attendees, TimeRange window) {
+      this.source = source;
+      this.attendees = attendees;
+      this.window = window;
+    }
+
+    @Override
+    protected List<int[]> compute() {
+      if (attendees.size() <= ATTENDEES_PER_TASK) {
+        SweepLine busyTimes = new SweepLine(attendees.size());
+        for (String attendee : attendees) {
+          source.addBusyTimes(attendee, window, busyTimes);
+        }
+        return Collections.singletonList(busyTimes.mergedBusyIntervals());
+      }
+
+      int middle = attendees.size() / 2;
+      MergeTask left = new MergeTask(source, attendees.subList(0, middle), window);
+      MergeTask right = new MergeTask(source, attendees.subList(middle, attendees.size()), window);
+      left.fork();
+      List<int[]> partials = new ArrayList<>(right.compute());
+      partials.addAll(left.join());
+      return partials;
+    }
+  }
+}
@@ -0,0 +1,110 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+/**
+ * Recurrence describes how an event repeats: a fixed number of occurrences, each starting
+ * {@code period} minutes after the previous one. Occurrences are never stored. They are computed
+ * only for the window that a query asks about.
+ */
+public final class Recurrence {
+  private final int period;
+  private final int occurrences;
+
+  /**
+   * Creates a new recurrence rule.
+   *
+   * @param period The number of minutes between the starts of two occurrences. Must be positive.
+   * @param occurrences The total number of occurrences, including the first one. Must be positive.
+   */
+  public Recurrence(int period, int occurrences) {
+    if (period <= 0) {
+      throw new IllegalArgumentException("period must be positive");
+    }
+
+    if (occurrences <= 0) {
+      throw new IllegalArgumentException("occurrences must be positive");
+    }
+
+    this.period = period;
+    this.occurrences = occurrences;
+  }
+
+  /**
+   * Returns a rule that repeats every day, {@code occurrences} times.
+   */
+  public static Recurrence daily(int occurrences) {
+    return new Recurrence(TimeRange.MINUTES_PER_DAY, occurrences);
+  }
+
+  /**
+   * Returns a rule that repeats every week, {@code occurrences} times.
+   */
+  public static Recurrence weekly(int occurrences) {
+    return new Recurrence(TimeRange.MINUTES_PER_WEEK, occurrences);
+  }
+
+  /**
+   * Returns the number of minutes between the starts of two occurrences.
+   */
+  public int getPeriod() {
+    return period;
+  }
+
+  /**
+   * Returns the total number of occurrences.
+   */
+  public int getOccurrences() {
+    return occurrences;
+  }
+
+  /**
+   * Marks every occurrence of {@code first} that overlaps {@code [windowStart, windowEnd)} as busy.
+   * Only the overlapping occurrences are visited, so the cost depends on the size of the window
+   * rather than on the number of occurrences.
+   */
+  void addOccurrences(TimeRange first, int windowStart, int windowEnd, Availability busyTimes) {
+    // Occurrence k covers [start + k * period, start + k * period + duration). It overlaps the
+    // window when it ends after the window starts and starts before the window ends.
+    long start = first.start();
+    long duration = first.duration();
+    long firstIndex = Math.max(0, Math.floorDiv(windowStart - start - duration, period) + 1);
+    long lastIndex = Math.min(occurrences - 1, Math.floorDiv(windowEnd - start - 1, period));
+
+    for (long k = firstIndex; k <= lastIndex; k++) {
+      long occurrenceStart = start + k * period;
+      busyTimes.add((int) occurrenceStart, (int) (occurrenceStart + duration));
+    }
+  }
+
+  @Override
+  public int hashCode() {
+    return Integer.hashCode(period) ^ Integer.hashCode(occurrences);
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof Recurrence && equals(this, (Recurrence) other);
+  }
+
+  @Override
+  public String toString() {
+    return String.format("Every %d minutes, %d times", period, occurrences);
+  }
+
+  private static boolean equals(Recurrence a, Recurrence b) {
+    return a.period == b.period && a.occurrences == b.occurrences;
+  }
+}
@@ -0,0 +1,216 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * SlotRanker scores candidate meeting times and keeps only the best {@code k}. A candidate earns
+ * points for every optional attendee who can join, for falling inside a preferred window, and for
+ * leaving a buffer before and after the mandatory attendees' other meetings. The edges of the
+ * request window are not meetings, so a side of a gap that ends at the window edge always counts
+ * as a full buffer.
+ *
+ * <p>Candidates are kept in a heap bounded to {@code k} entries. Free gaps are visited in order of
+ * the best score they could possibly contain, and the search stops as soon as no remaining gap can
+ * beat the current {@code k}-th best candidate, so the full list of feasible times is never built.
+ */
+public final class SlotRanker {
+  /** Points for each optional attendee who can join. */
+  public static final int OPTIONAL_ATTENDEE_SCORE = 100;
+  /** Points for a meeting that lies completely inside a preferred window. */
+  public static final int PREFERRED_WINDOW_SCORE = 50;
+  /** The largest buffer, in minutes, that earns points. Each minute of buffer earns one point. */
+  public static final int MAX_BUFFER_SCORE = 30;
+
+  private static final Comparator<Candidate> WORST_FIRST = new Comparator<Candidate>() {
+    @Override
+    public int compare(Candidate a, Candidate b) {
+      if (a.score != b.score) {
+        return Integer.compare(a.score, b.score);
+      }
+      // Between equal scores, the later time is worse.
+      return Integer.compare(b.start, a.start);
+    }
+  };
+
+  private final int k;
+  private final List<TimeRange> preferredWindows = new ArrayList<>();
+  private int step = 15;
+
+  /**
+   * Creates a ranker that returns at most {@code k} suggestions.
+   */
+  public SlotRanker(int k) {
+    if (k <= 0) {
+      throw new IllegalArgumentException("k must be positive");
+    }
+    this.k = k;
+  }
+
+  /**
+   * Adds a window that meetings should preferably be held in.
+   */
+  public void addPreferredWindow(TimeRange window) {
+    preferredWindows.add(window);
+  }
+
+  /**
+   * Sets the spacing, in minutes, between candidate start times. Candidates start on multiples of
+   * {@code step}, plus the first minute of each free gap. Defaults to 15.
+   */
+  public void setStep(int step) {
+    if (step <= 0) {
+      throw new IllegalArgumentException("step must be positive");
+    }
+    this.step = step;
+  }
+
+  /**
+   * Returns the best {@code k} meeting times, best first. Between equal scores, the earlier time
+   * wins.
+   *
+   * @param window The window that the meeting must be held in.
+   * @param requiredFreeTimes The gaps in which every mandatory attendee is free.
+   * @param optionalSweep The blocked start times of the optional attendees.
+   * @param optionalAttendees The number of optional attendees.
+   * @param duration The length of the meeting in minutes.
+   */
+  List<TimeRange> rank(TimeRange window, List<TimeRange> requiredFreeTimes,
+      OptionalAttendeeSweep optionalSweep, int optionalAttendees, int duration) {
+    List<Gap> gaps = new ArrayList<>(requiredFreeTimes.size());
+    for (TimeRange free : requiredFreeTimes) {
+      Gap gap = new Gap(free, free.start() > window.start(), free.end() < window.end());
+      gap.upperBound = upperBound(gap, optionalAttendees, duration);
+      gaps.add(gap);
+    }
+    Collections.sort(gaps, new Comparator<Gap>() {
+      @Override
+      public int compare(Gap a, Gap b) {
+        if (a.upperBound != b.upperBound) {
+          return Integer.compare(b.upperBound, a.upperBound);
+        }
+        return Integer.compare(a.free.start(), b.free.start());
+      }
+    });
+
+    PriorityQueue<Candidate> best = new PriorityQueue<>(k, WORST_FIRST);
+    for (Gap gap : gaps) {
+      if (best.size() == k && gap.upperBound < best.peek().score) {
+        // Gaps are sorted by their upper bound, so none of the remaining ones can do better. A gap
+        // that can only tie the k-th best may still win on its earlier start, so it is visited.
+        break;
+      }
+
+      int lastStart = gap.free.end() - duration;
+      int start = gap.free.start();
+      while (start <= lastStart) {
+        Candidate candidate =
+            new Candidate(start, score(gap, start, duration, optionalSweep, optionalAttendees));
+        if (best.size() < k) {
+          best.add(candidate);
+        } else if (WORST_FIRST.compare(candidate, best.peek()) > 0) {
+          best.poll();
+          best.add(candidate);
+        }
+        // Move on to the next multiple of step.
+        start = (Math.floorDiv(start, step) + 1) * step;
+      }
+    }
+
+    List<Candidate> sorted = new ArrayList<>(best);
+    Collections.sort(sorted, Collections.reverseOrder(WORST_FIRST));
+    List<TimeRange> suggestions = new ArrayList<>(sorted.size());
+    for (Candidate candidate : sorted) {
+      suggestions.add(TimeRange.fromStartDuration(candidate.start, duration));
+    }
+    return suggestions;
+  }
+
+  private int score(Gap gap, int start, int duration, OptionalAttendeeSweep optionalSweep,
+      int optionalAttendees) {
+    int availableOptionalAttendees = optionalAttendees - optionalSweep.blockedAt(start);
+    TimeRange meeting = TimeRange.fromStartDuration(start, duration);
+    int buffer = MAX_BUFFER_SCORE;
+    if (gap.busyBefore) {
+      buffer = Math.min(buffer, start - gap.free.start());
+    }
+    if (gap.busyAfter) {
+      buffer = Math.min(buffer, gap.free.end() - meeting.end());
+    }
+
+    int score = availableOptionalAttendees * OPTIONAL_ATTENDEE_SCORE
+        + Math.min(buffer, MAX_BUFFER_SCORE);
+    for (TimeRange preferred : preferredWindows) {
+      if (preferred.contains(meeting)) {
+        score += PREFERRED_WINDOW_SCORE;
+        break;
+      }
+    }
+    return score;
+  }
+
+  /**
+   * Returns the highest score that any candidate in {@code gap} could have.
+   */
+  private int upperBound(Gap gap, int optionalAttendees, int duration) {
+    int slack = gap.free.duration() - duration;
+    int buffer;
+    if (gap.busyBefore && gap.busyAfter) {
+      buffer = slack / 2;
+    } else if (gap.busyBefore || gap.busyAfter) {
+      buffer = slack;
+    } else {
+      buffer = MAX_BUFFER_SCORE;
+    }
+    int bound = optionalAttendees * OPTIONAL_ATTENDEE_SCORE + Math.min(buffer, MAX_BUFFER_SCORE);
+    for (TimeRange preferred : preferredWindows) {
+      if (preferred.overlaps(gap.free)) {
+        bound += PREFERRED_WINDOW_SCORE;
+        break;
+      }
+    }
+    return bound;
+  }
+
+  private static final class Gap {
+    final TimeRange free;
+    /** Whether a busy interval ends where this gap starts, rather than the request window. */
+    final boolean busyBefore;
+    /** Whether a busy interval starts where this gap ends, rather than the request window. */
+    final boolean busyAfter;
+    int upperBound;
+
+    Gap(TimeRange free, boolean busyBefore, boolean busyAfter) {
+      this.free = free;
+      this.busyBefore = busyBefore;
+      this.busyAfter = busyAfter;
+    }
+  }
+
+  private static final class Candidate {
+    final int start;
+    final int score;
+
+    Candidate(int start, int score) {
+      this.start = start;
+      this.score = score;
+    }
+  }
+}
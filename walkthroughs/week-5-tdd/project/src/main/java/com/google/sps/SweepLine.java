@@ -0,0 +1,114 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SweepLine collects busy intervals as packed ranges (see {@code PackedTimeRange}) and finds the
+ * free gaps by sweeping over them in order of start. No {@code TimeRange} is created until a free
+ * gap is reported, so the cost of a query is dominated by one primitive sort.
+ */
+public final class SweepLine implements Availability {
+  private final TimeRangeList busyTimes;
+
+  /**
+   * Creates an empty sweep line with room for {@code expectedIntervals} busy intervals. It will
+   * grow if more are added.
+   */
+  public SweepLine(int expectedIntervals) {
+    this.busyTimes = new TimeRangeList(expectedIntervals);
+  }
+
+  /**
+   * Marks {@code [start, end)} as busy. Empty intervals are ignored because they cannot block a
+   * meeting.
+   */
+  @Override
+  public void add(int start, int end) {
+    if (end <= start) {
+      return;
+    }
+    busyTimes.add(start, end);
+  }
+
+  /**
+   * Marks every interval of {@code packed} as busy. The array holds {@code start, end} pairs, as
+   * returned by {@link #mergedBusyIntervals()}.
+   */
+  @Override
+  public void addAll(int[] packed) {
+    for (int k = 0; k + 1 < packed.length; k += 2) {
+      add(packed[k], packed[k + 1]);
+    }
+  }
+
+  /**
+   * Returns the number of busy intervals that have been added.
+   */
+  public int size() {
+    return busyTimes.size();
+  }
+
+  /**
+   * Returns the free gaps within {@code window} that last at least {@code duration} minutes, sorted
+   * by start.
+   */
+  @Override
+  public List<TimeRange> freeRanges(TimeRange window, long duration) {
+    List<TimeRange> free = new ArrayList<>();
+    int windowStart = window.start();
+    int windowEnd = window.end();
+
+    busyTimes.sort();
+
+    // Everything before freeStart is known to be busy or outside of the window. A gap opens
+    // whenever the next interval starts after it.
+    int freeStart = windowStart;
+    for (int k = 0; k < busyTimes.size() && freeStart < windowEnd; k++) {
+      long busyTime = busyTimes.get(k);
+      int start = PackedTimeRange.start(busyTime);
+      if (start > freeStart) {
+        addIfLongEnough(free, freeStart, Math.min(start, windowEnd), duration);
+      }
+      freeStart = Math.max(freeStart, PackedTimeRange.end(busyTime));
+    }
+    addIfLongEnough(free, freeStart, windowEnd, duration);
+    return free;
+  }
+
+  /**
+   * Returns the busy intervals merged into disjoint blocks, sorted by start and packed as
+   * {@code start, end} pairs. The stored intervals are merged in place as well.
+   */
+  public int[] mergedBusyIntervals() {
+    busyTimes.mergeOverlapping();
+
+    int[] merged = new int[busyTimes.size() * 2];
+    for (int k = 0; k < busyTimes.size(); k++) {
+      long busyTime = busyTimes.get(k);
+      merged[2 * k] = PackedTimeRange.start(busyTime);
+      merged[2 * k + 1] = PackedTimeRange.end(busyTime);
+    }
+    return merged;
+  }
+
+  private static void addIfLongEnough(List<TimeRange> free, int start, int end, long duration) {
+    if (end > start && end - start >= duration) {
+      free.add(TimeRange.fromStartEnd(start, end, false));
+    }
+  }
+}
@@ -21,10 +21,13 @@ import java.util.Comparator;
  * providing methods to make ranges easier to work with (e.g. {@code overlaps}).
  */
 public final class TimeRange {
+  public static final int MINUTES_PER_DAY = 24 * 60;
+  public static final int MINUTES_PER_WEEK = 7 * MINUTES_PER_DAY;
+
   public static final int START_OF_DAY = getTimeInMinutes(0, 0);
   public static final int END_OF_DAY = getTimeInMinutes(23, 59);
 
-  public static final TimeRange WHOLE_DAY = new TimeRange(0, 24 * 60);
+  public static final TimeRange WHOLE_DAY = new TimeRange(0, MINUTES_PER_DAY);
 
   /**
    * A comparator for sorting ranges by their start time in ascending order.
@@ -168,6 +171,25 @@ public final class TimeRange {
     return (hours * 60) + minutes;
   }
 
+  /**
+   * Returns the minute at {@code hours:minutes} on day {@code day}, counting from the start of day
+   * zero. This is used for ranges that span more than one day, such as a week of recurring events.
+   */
+  public static int getTimeInMinutes(int day, int hours, int minutes) {
+    if (day < 0) {
+      throw new IllegalArgumentException("Day cannot be negative.");
+    }
+
+    return day * MINUTES_PER_DAY + getTimeInMinutes(hours, minutes);
+  }
+
+  /**
+   * Creates a {@code TimeRange} covering {@code days} whole days, starting at day {@code firstDay}.
+   */
+  public static TimeRange wholeDays(int firstDay, int days) {
+    return new TimeRange(firstDay * MINUTES_PER_DAY, days * MINUTES_PER_DAY);
+  }
+
   /**
    * Creates a {@code TimeRange} from {@code start} to {@code end}. Whether or not {@code end} is
    * included in the range will depend on {@code inclusive}. If {@code inclusive} is {@code true},
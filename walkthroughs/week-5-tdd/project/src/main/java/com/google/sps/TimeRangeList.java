@@ -0,0 +1,123 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A growable list of time ranges backed by a {@code long[]} of packed ranges (see
+ * {@code PackedTimeRange}). Adding a range does not allocate unless the backing array has to grow.
+ */
+public final class TimeRangeList {
+  private long[] ranges;
+  private int size;
+
+  /**
+   * Creates an empty list with room for {@code capacity} ranges.
+   */
+  public TimeRangeList(int capacity) {
+    this.ranges = new long[Math.max(capacity, 4)];
+  }
+
+  /**
+   * Appends a packed range.
+   */
+  public void add(long range) {
+    if (size == ranges.length) {
+      ranges = Arrays.copyOf(ranges, size * 2);
+    }
+    ranges[size++] = range;
+  }
+
+  /**
+   * Appends the range from {@code start} (inclusive) to {@code end} (exclusive).
+   */
+  public void add(int start, int end) {
+    add(PackedTimeRange.fromStartEnd(start, end));
+  }
+
+  /**
+   * Returns the packed range at {@code index}.
+   */
+  public long get(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+    return ranges[index];
+  }
+
+  /**
+   * Returns the number of ranges in the list.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Removes every range, keeping the backing array for reuse.
+   */
+  public void clear() {
+    size = 0;
+  }
+
+  /**
+   * Sorts the ranges by start, and by duration when the starts are equal.
+   */
+  public void sort() {
+    Arrays.sort(ranges, 0, size);
+  }
+
+  /**
+   * Sorts the ranges and merges the ones that overlap or touch, in place. Afterwards the list holds
+   * disjoint ranges sorted by start.
+   */
+  public void mergeOverlapping() {
+    if (size == 0) {
+      return;
+    }
+    sort();
+
+    int merged = 0;
+    for (int k = 1; k < size; k++) {
+      long range = ranges[k];
+      if (PackedTimeRange.start(range) <= PackedTimeRange.end(ranges[merged])) {
+        ranges[merged] = PackedTimeRange.merge(ranges[merged], range);
+      } else {
+        ranges[++merged] = range;
+      }
+    }
+    size = merged + 1;
+  }
+
+  /**
+   * Returns a copy of the packed ranges.
+   */
+  public long[] toArray() {
+    return Arrays.copyOf(ranges, size);
+  }
+
+  /**
+   * Returns the ranges as {@code TimeRange}s, in list order.
+   */
+  public List<TimeRange> toTimeRanges() {
+    List<TimeRange> list = new ArrayList<>(size);
+    for (int k = 0; k < size; k++) {
+      list.add(PackedTimeRange.toTimeRange(ranges[k]));
+    }
+    return list;
+  }
+}
@@ -0,0 +1,113 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+/**
+ * WorkingHours describes when an attendee is willing to meet: a daily span of local time and the
+ * offset of their time zone from UTC. Times outside of that span are treated as busy, exactly like
+ * an event, so they are merged in the same pass as the attendee's calendar.
+ */
+public final class WorkingHours {
+  private static final int MAX_UTC_OFFSET = 14 * 60;
+
+  private final int start;
+  private final int end;
+  private final int utcOffset;
+
+  /**
+   * Creates new working hours.
+   *
+   * @param start The local minute of the day at which work starts, from 0 to 1439.
+   * @param end The local minute of the day at which work ends (exclusive), from 1 to 1440. It may
+   *     be earlier than {@code start} for hours that run past midnight.
+   * @param utcOffset The number of minutes that local time is ahead of UTC. For example, UTC-5 is
+   *     -300.
+   */
+  public WorkingHours(int start, int end, int utcOffset) {
+    if (start < 0 || start >= TimeRange.MINUTES_PER_DAY) {
+      throw new IllegalArgumentException("start must be within the day");
+    }
+
+    if (end <= 0 || end > TimeRange.MINUTES_PER_DAY) {
+      throw new IllegalArgumentException("end must be within the day");
+    }
+
+    if (start == end) {
+      throw new IllegalArgumentException("start and end cannot be equal");
+    }
+
+    if (Math.abs(utcOffset) > MAX_UTC_OFFSET) {
+      throw new IllegalArgumentException("utcOffset must be between -14 and +14 hours");
+    }
+
+    this.start = start;
+    this.end = end;
+    this.utcOffset = utcOffset;
+  }
+
+  /**
+   * Returns the local minute of the day at which work starts.
+   */
+  public int getStart() {
+    return start;
+  }
+
+  /**
+   * Returns the local minute of the day at which work ends.
+   */
+  public int getEnd() {
+    return end;
+  }
+
+  /**
+   * Returns the number of minutes that local time is ahead of UTC.
+   */
+  public int getUtcOffset() {
+    return utcOffset;
+  }
+
+  /**
+   * Marks every minute of {@code window} that falls outside of these working hours as busy. Times
+   * in {@code window} are in UTC.
+   */
+  public void addBlockedTimes(TimeRange window, Availability availability) {
+    // Local day d starts at UTC minute d * MINUTES_PER_DAY - utcOffset. Its blocked time runs from
+    // the end of work until work starts again, which is on the next day unless the working hours
+    // run past midnight.
+    int blockedDuration = start < end
+        ? TimeRange.MINUTES_PER_DAY - end + start
+        : start - end;
+    int firstDay = Math.floorDiv(window.start() + utcOffset, TimeRange.MINUTES_PER_DAY) - 1;
+    int lastDay = Math.floorDiv(window.end() - 1 + utcOffset, TimeRange.MINUTES_PER_DAY);
+    for (int day = firstDay; day <= lastDay; day++) {
+      int blockedStart = day * TimeRange.MINUTES_PER_DAY + end - utcOffset;
+      availability.add(blockedStart, blockedStart + blockedDuration);
+    }
+  }
+
+  @Override
+  public int hashCode() {
+    return Integer.hashCode(start) ^ Integer.hashCode(end) ^ Integer.hashCode(utcOffset);
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof WorkingHours && equals(this, (WorkingHours) other);
+  }
+
+  private static boolean equals(WorkingHours a, WorkingHours b) {
+    return a.start == b.start && a.end == b.end && a.utcOffset == b.utcOffset;
+  }
+}
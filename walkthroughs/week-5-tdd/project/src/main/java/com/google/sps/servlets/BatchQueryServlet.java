@@ -0,0 +1,136 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.sps.AttendeeBusyIndex;
+import com.google.sps.Events;
+import com.google.sps.FindMeetingQuery;
+import com.google.sps.MeetingRequest;
+import com.google.sps.TimeRange;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.EOFException;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Answers many meeting requests in one call. The body is a JSON array of {@code MeetingRequest}s
+ * and the response is a JSON array holding the possible meeting times of each request, in the same
+ * order. A batch may hold at most {@code MAX_BATCH_SIZE} requests, and each window is limited as
+ * in {@code QueryServlet}.
+ */
+@WebServlet("/batch-query")
+public class BatchQueryServlet extends HttpServlet {
+  private static final Type TIME_RANGES_TYPE = new TypeToken<Collection<TimeRange>>() {}.getType();
+
+  // The most requests in one batch.
+  static final int MAX_BATCH_SIZE = 100;
+
+  private AttendeeBusyIndex busyIndex;
+  private ForkJoinPool pool;
+
+  @Override
+  public void init() {
+    // The events are scanned once here, so the requests of a batch only merge the busy times of
+    // the people they name.
+    busyIndex = AttendeeBusyIndex.fromEvents(Arrays.asList(Events.events));
+    pool = new ForkJoinPool();
+  }
+
+  @Override
+  public void destroy() {
+    pool.shutdown();
+  }
+
+  @Override
+  public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    Gson gson = new Gson();
+
+    // Convert the JSON to MeetingRequests one at a time, so that an oversized batch is turned
+    // away before all of it is read.
+    List<MeetingRequest> meetingRequests = new ArrayList<>();
+    JsonReader reader = new JsonReader(request.getReader());
+    JsonToken first;
+    try {
+      first = reader.peek();
+    } catch (EOFException e) {
+      // An empty body is an empty batch.
+      first = JsonToken.END_DOCUMENT;
+    }
+    if (first != JsonToken.NULL && first != JsonToken.END_DOCUMENT) {
+      reader.beginArray();
+      while (reader.hasNext()) {
+        if (meetingRequests.size() == MAX_BATCH_SIZE) {
+          response.sendError(HttpServletResponse.SC_BAD_REQUEST,
+              "A batch may hold at most " + MAX_BATCH_SIZE + " requests");
+          return;
+        }
+        MeetingRequest meetingRequest = gson.fromJson(reader, MeetingRequest.class);
+        if (!QueryServlet.hasValidWindow(meetingRequest)) {
+          response.sendError(HttpServletResponse.SC_BAD_REQUEST, "window must not be longer than "
+              + QueryServlet.MAX_WINDOW_DURATION + " minutes");
+          return;
+        }
+        meetingRequests.add(meetingRequest);
+      }
+      reader.endArray();
+    }
+
+    // Find the possible meeting times of every request in parallel.
+    FindMeetingQuery findMeetingQuery = new FindMeetingQuery();
+    List<Callable<Collection<TimeRange>>> tasks = new ArrayList<>(meetingRequests.size());
+    for (MeetingRequest meetingRequest : meetingRequests) {
+      tasks.add(() -> findMeetingQuery.query(busyIndex, meetingRequest));
+    }
+    List<Future<Collection<TimeRange>>> answers = pool.invokeAll(tasks);
+
+    // Write each answer as soon as it is taken so the full response is never held as a string.
+    response.setContentType("application/json");
+    JsonWriter writer = new JsonWriter(response.getWriter());
+    writer.beginArray();
+    for (Future<Collection<TimeRange>> answer : answers) {
+      gson.toJson(getAnswer(answer), TIME_RANGES_TYPE, writer);
+    }
+    writer.endArray();
+    writer.flush();
+  }
+
+  private static Collection<TimeRange> getAnswer(Future<Collection<TimeRange>> answer)
+      throws IOException {
+    try {
+      return answer.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while finding meeting times", e);
+    } catch (ExecutionException e) {
+      throw new IOException("Could not find meeting times", e.getCause());
+    }
+  }
+}
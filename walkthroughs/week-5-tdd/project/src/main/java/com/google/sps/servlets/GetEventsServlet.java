@@ -14,9 +14,17 @@
 
 package com.google.sps.servlets;
 
+import com.google.sps.Event;
 import com.google.sps.Events;
 import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonSerializer;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
@@ -24,13 +32,73 @@ import javax.servlet.http.HttpServletResponse;
 
 @WebServlet("/get-events")
 public class GetEventsServlet extends HttpServlet {
+  // The events never change, so they are converted to JSON once and the same bytes are sent on
+  // every request.
+  private byte[] jsonResponse;
+  private String etag;
+
+  @Override
+  public void init() {
+    // Events hold their attendees as interned IDs, so they are written out by name explicitly.
+    Gson gson = new GsonBuilder()
+        .registerTypeAdapter(Event.class, (JsonSerializer<Event>) (event, type, context) -> {
+          JsonObject json = new JsonObject();
+          json.addProperty("title", event.getTitle());
+          json.add("when", context.serialize(event.getWhen()));
+          json.add("attendees", context.serialize(event.getAttendees()));
+          if (event.isRecurring()) {
+            json.add("recurrence", context.serialize(event.getRecurrence()));
+          }
+          return json;
+        })
+        .create();
+    jsonResponse = gson.toJson(Events.events).getBytes(StandardCharsets.UTF_8);
+    etag = computeEtag(jsonResponse);
+  }
+
   @Override
   public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
-    Gson gson = new Gson();
-    String jsonResponse = gson.toJson(Events.events);
+    response.setHeader("ETag", etag);
+
+    // The client already has this exact response cached.
+    if (matchesEtag(request.getHeader("If-None-Match"), etag)) {
+      response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+      return;
+    }
 
     // Send the JSON back as the response
     response.setContentType("application/json");
-    response.getWriter().println(jsonResponse);
+    response.setCharacterEncoding("UTF-8");
+    response.setContentLength(jsonResponse.length);
+    response.getOutputStream().write(jsonResponse);
+  }
+
+  /**
+   * Returns whether an If-None-Match header lists {@code etag}.
+   */
+  static boolean matchesEtag(String ifNoneMatch, String etag) {
+    if (ifNoneMatch == null) {
+      return false;
+    }
+    for (String candidate : ifNoneMatch.split(",")) {
+      String trimmed = candidate.trim();
+      if (trimmed.equals("*") || trimmed.equals(etag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns a strong ETag derived from the content of {@code body}.
+   */
+  static String computeEtag(byte[] body) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+      return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest) + "\"";
+    } catch (NoSuchAlgorithmException e) {
+      // Every Java platform is required to support SHA-256.
+      throw new IllegalStateException(e);
+    }
   }
 }
@@ -14,12 +14,18 @@
 
 package com.google.sps.servlets;
 
+import com.google.sps.AttendeeBusyIndex;
 import com.google.sps.Events;
 import com.google.sps.FindMeetingQuery;
 import com.google.sps.MeetingRequest;
+import com.google.sps.SlotRanker;
 import com.google.sps.TimeRange;
 import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 import java.io.IOException;
+import java.lang.reflect.Type;
 import java.util.Arrays;
 import java.util.Collection;
 import javax.servlet.annotation.WebServlet;
@@ -29,23 +35,68 @@ import javax.servlet.http.HttpServletResponse;
 
 @WebServlet("/query")
 public class QueryServlet extends HttpServlet {
+  private static final Type TIME_RANGES_TYPE = new TypeToken<Collection<TimeRange>>() {}.getType();
+
+  // The longest window a request may search. Ranked queries visit every step of the window and
+  // working hours add an interval per day, so the window bounds the work done per request.
+  static final int MAX_WINDOW_DURATION = 4 * TimeRange.MINUTES_PER_WEEK;
+
+  // Built once from the events and shared by every request. The index is read-only, so concurrent
+  // queries can use it without locking.
+  private AttendeeBusyIndex busyIndex;
+
+  @Override
+  public void init() {
+    busyIndex = AttendeeBusyIndex.fromEvents(Arrays.asList(Events.events));
+  }
+
   @Override
   public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
     Gson gson = new Gson();
 
-    // Convert the JSON to an instance of MeetingRequest.
-    MeetingRequest meetingRequest = gson.fromJson(request.getReader(), MeetingRequest.class);
+    // Convert the JSON to an instance of MeetingRequest, reading it straight from the request.
+    MeetingRequest meetingRequest =
+        gson.fromJson(new JsonReader(request.getReader()), MeetingRequest.class);
+    if (!hasValidWindow(meetingRequest)) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST,
+          "window must not be longer than " + MAX_WINDOW_DURATION + " minutes");
+      return;
+    }
 
-    // Find the possible meeting times.
+    // Find the possible meeting times. With ?top=K, return only the K best meeting times. With
+    // ?optional=maximize, return the times that the most optional attendees can join instead of
+    // all of them or none.
     FindMeetingQuery findMeetingQuery = new FindMeetingQuery();
-    Collection<TimeRange> answer =
-        findMeetingQuery.query(Arrays.asList(Events.events), meetingRequest);
-
-    // Convert the times to JSON
-    String jsonResponse = gson.toJson(answer);
+    Collection<TimeRange> answer;
+    String top = request.getParameter("top");
+    if (top != null) {
+      int k;
+      try {
+        k = Integer.parseInt(top);
+      } catch (NumberFormatException e) {
+        k = 0;
+      }
+      if (k <= 0) {
+        response.sendError(HttpServletResponse.SC_BAD_REQUEST, "top must be a positive integer");
+        return;
+      }
+      answer = findMeetingQuery.queryRanked(busyIndex, meetingRequest, new SlotRanker(k));
+    } else if ("maximize".equals(request.getParameter("optional"))) {
+      answer = findMeetingQuery.queryMaximizingOptionalAttendees(busyIndex, meetingRequest);
+    } else {
+      answer = findMeetingQuery.query(busyIndex, meetingRequest);
+    }
 
-    // Send the JSON back as the response
+    // Write the times as JSON straight to the response, without building the whole string first.
     response.setContentType("application/json");
-    response.getWriter().println(jsonResponse);
+    JsonWriter writer = new JsonWriter(response.getWriter());
+    gson.toJson(answer, TIME_RANGES_TYPE, writer);
+    writer.flush();
+  }
+
+  /** Returns whether the request's window is no longer than {@code MAX_WINDOW_DURATION}. */
+  static boolean hasValidWindow(MeetingRequest meetingRequest) {
+    int duration = meetingRequest.getWindow().duration();
+    return duration >= 0 && duration <= MAX_WINDOW_DURATION;
   }
 }
@@ -92,10 +92,15 @@ function timeToString(totalMinutes) {
  * Request for possible meeting times.
  */
 class MeetingRequest {
-  constructor(duration, attendees, optional_attendees) {
+  /**
+   * The window is an optional TimeRange to search in. When it is left out, the
+   * server searches the first day.
+   */
+  constructor(duration, attendees, optional_attendees, window) {
     this.duration = duration;
     this.attendees = attendees;
     this.optional_attendees = optional_attendees;
+    this.window = window;
   }
 }
 
@@ -0,0 +1,74 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class AttendeeDictionaryTest {
+  @Test
+  public void internReturnsTheSameIdForTheSameName() {
+    AttendeeDictionary dictionary = new AttendeeDictionary();
+
+    int first = dictionary.intern("Person A");
+    int second = dictionary.intern("Person B");
+
+    Assert.assertEquals(0, first);
+    Assert.assertEquals(1, second);
+    Assert.assertEquals(first, dictionary.intern("Person A"));
+    Assert.assertEquals("Person B", dictionary.name(second));
+    Assert.assertEquals(-1, dictionary.find("Person C"));
+  }
+
+  @Test
+  public void internAllReturnsSortedDistinctIds() {
+    AttendeeDictionary dictionary = new AttendeeDictionary();
+    dictionary.intern("Person C");
+    dictionary.intern("Person B");
+
+    int[] actual = dictionary.internAll(Arrays.asList("Person A", "Person C", "Person A"));
+
+    Assert.assertArrayEquals(new int[] {0, 2}, actual);
+  }
+
+  @Test
+  public void internGrowsPastInitialCapacity() {
+    AttendeeDictionary dictionary = new AttendeeDictionary();
+    for (int k = 0; k < 100; k++) {
+      Assert.assertEquals(k, dictionary.intern("Person " + k));
+    }
+
+    Assert.assertEquals(100, dictionary.size());
+    Assert.assertEquals("Person 99", dictionary.name(99));
+  }
+
+  @Test
+  public void eventAttendeesReadBackByName() {
+    Event event = new Event("Event 1", TimeRange.fromStartDuration(0, 30),
+        Arrays.asList("Dictionary Person A", "Dictionary Person B"));
+
+    Assert.assertTrue(event.getAttendees().contains("Dictionary Person A"));
+    Assert.assertFalse(event.getAttendees().contains("Dictionary Person C"));
+    Assert.assertEquals(
+        new HashSet<>(Arrays.asList("Dictionary Person A", "Dictionary Person B")),
+        new HashSet<>(event.getAttendees()));
+  }
+}
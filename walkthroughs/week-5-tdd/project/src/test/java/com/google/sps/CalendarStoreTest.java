@@ -0,0 +1,130 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class CalendarStoreTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0830AM = TimeRange.getTimeInMinutes(8, 30);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_0930AM = TimeRange.getTimeInMinutes(9, 30);
+
+  private static final int DURATION_30_MINUTES = 30;
+
+  private static final Event EVENT_A = new Event("Event 1",
+      TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES), Arrays.asList(PERSON_A));
+  private static final Event EVENT_B = new Event("Event 2",
+      TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES), Arrays.asList(PERSON_B));
+
+  private CalendarStore store;
+
+  @Before
+  public void setUp() {
+    store = new CalendarStore(10);
+    store.addEvent(EVENT_A);
+    store.addEvent(EVENT_B);
+  }
+
+  @Test
+  public void matchesFindMeetingQuery() {
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
+
+    Collection<TimeRange> actual = store.query(request);
+    Collection<TimeRange> expected =
+        new FindMeetingQuery().query(Arrays.asList(EVENT_A, EVENT_B), request);
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void repeatedQueryIsCached() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    Collection<TimeRange> first = store.query(request);
+    Collection<TimeRange> second = store.query(request);
+
+    Assert.assertSame(first, second);
+    Assert.assertEquals(1, store.cachedResults());
+  }
+
+  @Test
+  public void changeEvictsOnlyQueriesNamingTheAttendee() {
+    MeetingRequest requestA = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    MeetingRequest requestB = new MeetingRequest(Arrays.asList(PERSON_B), DURATION_30_MINUTES);
+    store.query(requestA);
+    Collection<TimeRange> resultB = store.query(requestB);
+
+    Event moved = new Event("Event 1",
+        TimeRange.fromStartDuration(TIME_0830AM, DURATION_30_MINUTES), Arrays.asList(PERSON_A));
+    Assert.assertTrue(store.updateEvent(EVENT_A, moved));
+
+    Assert.assertEquals(1, store.cachedResults());
+    Assert.assertSame(resultB, store.query(requestB));
+
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0830AM, false),
+            TimeRange.fromStartEnd(TIME_0900AM, TimeRange.END_OF_DAY, true));
+    Assert.assertEquals(expected, store.query(requestA));
+  }
+
+  @Test
+  public void optionalAttendeeChangeEvictsQuery() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_C);
+    store.query(request);
+
+    store.addEvent(new Event("Event 3", TimeRange.WHOLE_DAY, Arrays.asList(PERSON_C)));
+
+    Assert.assertEquals(0, store.cachedResults());
+  }
+
+  @Test
+  public void removingUnknownEventChangesNothing() {
+    store.query(new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES));
+
+    Event unknown = new Event("Unknown", TimeRange.WHOLE_DAY, Arrays.asList(PERSON_A));
+
+    Assert.assertFalse(store.removeEvent(unknown));
+    Assert.assertEquals(1, store.cachedResults());
+  }
+
+  @Test
+  public void leastRecentlyUsedResultIsEvicted() {
+    CalendarStore smallStore = new CalendarStore(1);
+    smallStore.addEvent(EVENT_A);
+    MeetingRequest requestA = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    MeetingRequest requestB = new MeetingRequest(Arrays.asList(PERSON_B), DURATION_30_MINUTES);
+
+    Collection<TimeRange> resultA = smallStore.query(requestA);
+    smallStore.query(requestB);
+
+    Assert.assertEquals(1, smallStore.cachedResults());
+    Assert.assertNotSame(resultA, smallStore.query(requestA));
+  }
+}
@@ -0,0 +1,495 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Checks every optimized query path against a brute-force oracle that marks busy time one minute
+ * at a time, over randomly generated calendars. The time spent in each path is printed so that
+ * regressions show up next to the results. Working hours, the query that maximizes optional
+ * attendees and the ranked query each have an oracle of their own built on the same minutes.
+ */
+@RunWith(JUnit4.class)
+public final class FindMeetingQueryDifferentialTest {
+  private static final int MAX_EVENT_DURATION = 120;
+
+  @Test
+  public void smallRandomCalendarsMatchOracle() {
+    Map<String, Long> nanos = new LinkedHashMap<>();
+    for (long seed = 0; seed < 300; seed++) {
+      Random random = new Random(seed);
+      int people = 2 + random.nextInt(10);
+      List<Event> events = randomEvents(random, random.nextInt(40), people);
+      List<MeetingRequest> requests = new ArrayList<>();
+      for (int k = 0; k < 5; k++) {
+        requests.add(randomRequest(random, people, 1 + random.nextInt(6)));
+      }
+      checkAllPaths(events, noWorkingHours(), requests, seed, nanos);
+    }
+    report("small calendars", nanos);
+  }
+
+  @Test
+  public void workingHoursMatchOracle() {
+    Map<String, Long> nanos = new LinkedHashMap<>();
+    for (long seed = 0; seed < 300; seed++) {
+      Random random = new Random(seed);
+      int people = 2 + random.nextInt(10);
+      List<Event> events = randomEvents(random, random.nextInt(40), people);
+      Map<String, WorkingHours> workingHours = randomWorkingHours(random, people);
+      List<MeetingRequest> requests = new ArrayList<>();
+      for (int k = 0; k < 5; k++) {
+        requests.add(randomRequest(random, people, 1 + random.nextInt(6)));
+      }
+      checkAllPaths(events, workingHours, requests, seed, nanos);
+    }
+    report("small calendars with working hours", nanos);
+  }
+
+  @Test
+  public void maximizingOptionalAttendeesMatchesOracle() {
+    FindMeetingQuery query = new FindMeetingQuery();
+    for (long seed = 0; seed < 300; seed++) {
+      Random random = new Random(seed);
+      int people = 2 + random.nextInt(10);
+      List<Event> events = randomEvents(random, random.nextInt(40), people);
+      Map<String, WorkingHours> workingHours =
+          random.nextBoolean() ? randomWorkingHours(random, people) : noWorkingHours();
+      AttendeeBusyIndex index = AttendeeBusyIndex.fromEvents(events, workingHours);
+
+      for (int k = 0; k < 5; k++) {
+        MeetingRequest request = randomRequest(random, people, 1 + random.nextInt(6));
+        Assert.assertEquals("seed " + seed,
+            bruteForceMaximizingOptional(events, workingHours, request),
+            new ArrayList<>(query.queryMaximizingOptionalAttendees(index, request)));
+      }
+    }
+  }
+
+  @Test
+  public void rankedMatchesExhaustiveScoring() {
+    FindMeetingQuery query = new FindMeetingQuery();
+    for (long seed = 0; seed < 300; seed++) {
+      Random random = new Random(seed);
+      int people = 2 + random.nextInt(10);
+      List<Event> events = randomEvents(random, random.nextInt(40), people);
+      Map<String, WorkingHours> workingHours =
+          random.nextBoolean() ? randomWorkingHours(random, people) : noWorkingHours();
+      AttendeeBusyIndex index = AttendeeBusyIndex.fromEvents(events, workingHours);
+
+      for (int k = 0; k < 5; k++) {
+        MeetingRequest request = randomRequest(random, people, 1 + random.nextInt(6));
+        int top = 1 + random.nextInt(5);
+        int step = 1 + random.nextInt(30);
+        TimeRange window = request.getWindow();
+        TimeRange preferred = TimeRange.fromStartDuration(
+            window.start() + random.nextInt(window.duration()), 30 + random.nextInt(240));
+
+        SlotRanker ranker = new SlotRanker(top);
+        ranker.setStep(step);
+        ranker.addPreferredWindow(preferred);
+        Assert.assertEquals("seed " + seed,
+            bruteForceRanked(events, workingHours, request, top, step, preferred),
+            query.queryRanked(index, request, ranker));
+      }
+    }
+  }
+
+  @Test
+  public void largeRandomCalendarMatchesOracle() {
+    Random random = new Random(42);
+    int people = 20000;
+    List<Event> events = randomEvents(random, 100000, people);
+
+    List<MeetingRequest> requests = new ArrayList<>();
+    for (int k = 0; k < 10; k++) {
+      requests.add(randomRequest(random, people, 1 + random.nextInt(40)));
+    }
+    // One request large enough for the default parallel threshold.
+    requests.add(randomRequest(random, people, 1200));
+
+    Map<String, Long> nanos = new LinkedHashMap<>();
+    checkAllPaths(events, noWorkingHours(), requests, 42, nanos);
+    report("100k events", nanos);
+  }
+
+  /**
+   * Runs each of {@code requests} through every query path and compares each answer with the
+   * oracle. The time taken by each path is added to {@code nanos}. The paths that read events
+   * directly have no working hours, so they are skipped when {@code workingHours} is not empty.
+   */
+  private static void checkAllPaths(List<Event> events, Map<String, WorkingHours> workingHours,
+      List<MeetingRequest> requests, long seed, Map<String, Long> nanos) {
+    AttendeeBusyIndex index = AttendeeBusyIndex.fromEvents(events, workingHours);
+    CalendarStore store = new CalendarStore(16);
+    for (Event event : events) {
+      store.addEvent(event);
+    }
+    for (Map.Entry<String, WorkingHours> hours : workingHours.entrySet()) {
+      store.setWorkingHours(hours.getKey(), hours.getValue());
+    }
+
+    FindMeetingQuery sweepLine =
+        new FindMeetingQuery(FindMeetingQuery.Backend.SWEEP_LINE, Integer.MAX_VALUE);
+    FindMeetingQuery bitmap =
+        new FindMeetingQuery(FindMeetingQuery.Backend.MINUTE_BITMAP, Integer.MAX_VALUE);
+    FindMeetingQuery parallel = new FindMeetingQuery(FindMeetingQuery.Backend.SWEEP_LINE, 1);
+
+    Map<String, Function<MeetingRequest, Collection<TimeRange>>> paths = new LinkedHashMap<>();
+    paths.put("oracle", r -> bruteForce(events, workingHours, r));
+    if (workingHours.isEmpty()) {
+      paths.put("events, sweep line", r -> sweepLine.query(events, r));
+      paths.put("events, bitmap", r -> bitmap.query(events, r));
+    }
+    paths.put("index, sweep line", r -> sweepLine.query(index, r));
+    paths.put("index, bitmap", r -> bitmap.query(index, r));
+    paths.put("index, parallel", r -> parallel.query(index, r));
+    paths.put("calendar store", store::query);
+
+    for (MeetingRequest request : requests) {
+      List<TimeRange> expected = null;
+      for (Map.Entry<String, Function<MeetingRequest, Collection<TimeRange>>> path :
+          paths.entrySet()) {
+        long start = System.nanoTime();
+        List<TimeRange> actual = new ArrayList<>(path.getValue().apply(request));
+        nanos.merge(path.getKey(), System.nanoTime() - start, Long::sum);
+
+        if (expected == null) {
+          expected = actual;
+        } else {
+          Assert.assertEquals(path.getKey() + " with seed " + seed, expected, actual);
+        }
+      }
+    }
+  }
+
+  /**
+   * Answers {@code request} by marking every busy minute of the window in two arrays, one for the
+   * required attendees and one for everyone.
+   */
+  private static List<TimeRange> bruteForce(
+      Collection<Event> events, Map<String, WorkingHours> workingHours, MeetingRequest request) {
+    TimeRange window = request.getWindow();
+    Map<String, boolean[]> busy = busyMinutes(events, workingHours, request);
+    boolean[] requiredBusy = new boolean[window.duration()];
+    boolean[] allBusy = new boolean[window.duration()];
+    for (Map.Entry<String, boolean[]> attendee : busy.entrySet()) {
+      boolean required = request.getAttendees().contains(attendee.getKey());
+      for (int minute = 0; minute < window.duration(); minute++) {
+        allBusy[minute] |= attendee.getValue()[minute];
+        requiredBusy[minute] |= required && attendee.getValue()[minute];
+      }
+    }
+
+    List<TimeRange> freeForEveryone = freeRuns(allBusy, window.start(), request.getDuration());
+    if (!freeForEveryone.isEmpty() || request.getAttendees().isEmpty()) {
+      return freeForEveryone;
+    }
+    return freeRuns(requiredBusy, window.start(), request.getDuration());
+  }
+
+  /**
+   * Answers {@code request} as {@code queryMaximizingOptionalAttendees} should, by counting the
+   * optional attendees who are free for each possible start minute.
+   */
+  private static List<TimeRange> bruteForceMaximizingOptional(
+      Collection<Event> events, Map<String, WorkingHours> workingHours, MeetingRequest request) {
+    TimeRange window = request.getWindow();
+    int duration = (int) request.getDuration();
+    int[] available = availableOptionalAttendees(events, workingHours, request);
+
+    int best = -1;
+    for (int offset = 0; offset < available.length; offset++) {
+      best = Math.max(best, available[offset]);
+    }
+    // Without mandatory attendees, a time that no optional attendee can make is not a meeting.
+    boolean needsOptional =
+        request.getAttendees().isEmpty() && !request.getOptionalAttendees().isEmpty();
+    List<TimeRange> slots = new ArrayList<>();
+    if (best < 0 || (needsOptional && best == 0)) {
+      return slots;
+    }
+
+    // Runs of consecutive best start minutes become one slot each.
+    int runStart = -1;
+    for (int offset = 0; offset <= available.length; offset++) {
+      boolean isBest = offset < available.length && available[offset] == best;
+      if (isBest && runStart < 0) {
+        runStart = offset;
+      } else if (!isBest && runStart >= 0) {
+        slots.add(TimeRange.fromStartEnd(
+            window.start() + runStart, window.start() + offset - 1 + duration, false));
+        runStart = -1;
+      }
+    }
+    return slots;
+  }
+
+  /**
+   * Answers {@code request} as {@code queryRanked} should, by scoring every candidate start and
+   * sorting all of them.
+   */
+  private static List<TimeRange> bruteForceRanked(Collection<Event> events,
+      Map<String, WorkingHours> workingHours, MeetingRequest request, int top, int step,
+      TimeRange preferred) {
+    TimeRange window = request.getWindow();
+    int duration = (int) request.getDuration();
+    List<TimeRange> suggestions = new ArrayList<>();
+    if (duration > window.duration()) {
+      return suggestions;
+    }
+    int[] available = availableOptionalAttendees(events, workingHours, request);
+
+    // Score the first start of each gap and every multiple of step after it.
+    List<int[]> candidates = new ArrayList<>();
+    for (int offset = 0; offset < available.length; offset++) {
+      if (available[offset] < 0) {
+        continue;
+      }
+      int start = window.start() + offset;
+      boolean gapStart = offset == 0 || available[offset - 1] < 0;
+      if (!gapStart && Math.floorMod(start, step) != 0) {
+        continue;
+      }
+      int gapFirst = offset;
+      while (gapFirst > 0 && available[gapFirst - 1] >= 0) {
+        gapFirst--;
+      }
+      int gapLast = offset;
+      while (gapLast + 1 < available.length && available[gapLast + 1] >= 0) {
+        gapLast++;
+      }
+
+      // A gap edge that is not the window edge is a busy interval.
+      int buffer = SlotRanker.MAX_BUFFER_SCORE;
+      if (gapFirst > 0) {
+        buffer = Math.min(buffer, offset - gapFirst);
+      }
+      if (window.start() + gapLast + duration < window.end()) {
+        buffer = Math.min(buffer, gapLast - offset);
+      }
+      int score = available[offset] * SlotRanker.OPTIONAL_ATTENDEE_SCORE + buffer;
+      if (preferred.contains(TimeRange.fromStartDuration(start, duration))) {
+        score += SlotRanker.PREFERRED_WINDOW_SCORE;
+      }
+      candidates.add(new int[] {start, score});
+    }
+
+    Collections.sort(candidates, (a, b) -> a[1] != b[1]
+        ? Integer.compare(b[1], a[1])
+        : Integer.compare(a[0], b[0]));
+    for (int[] candidate : candidates.subList(0, Math.min(top, candidates.size()))) {
+      suggestions.add(TimeRange.fromStartDuration(candidate[0], duration));
+    }
+    return suggestions;
+  }
+
+  /**
+   * Returns, for each start minute of the window, how many optional attendees are free for the
+   * whole meeting, or -1 if a required attendee is not or the meeting would not fit.
+   */
+  private static int[] availableOptionalAttendees(
+      Collection<Event> events, Map<String, WorkingHours> workingHours, MeetingRequest request) {
+    TimeRange window = request.getWindow();
+    int duration = (int) Math.max(request.getDuration(), 1);
+    Map<String, boolean[]> busy = busyMinutes(events, workingHours, request);
+    int starts = Math.max(0, window.duration() - (int) request.getDuration() + 1);
+    int[] available = new int[Math.min(starts, window.duration())];
+    for (int offset = 0; offset < available.length; offset++) {
+      for (Map.Entry<String, boolean[]> attendee : busy.entrySet()) {
+        boolean free = true;
+        for (int minute = offset; minute < Math.min(offset + duration, window.duration());
+            minute++) {
+          free &= !attendee.getValue()[minute];
+        }
+        if (request.getAttendees().contains(attendee.getKey())) {
+          if (!free) {
+            available[offset] = -1;
+            break;
+          }
+        } else if (free) {
+          available[offset]++;
+        }
+      }
+    }
+    return available;
+  }
+
+  /**
+   * Marks the busy minutes of the window for every attendee of {@code request}, from their events
+   * and from the time outside their working hours.
+   */
+  private static Map<String, boolean[]> busyMinutes(
+      Collection<Event> events, Map<String, WorkingHours> workingHours, MeetingRequest request) {
+    TimeRange window = request.getWindow();
+    Map<String, boolean[]> busy = new HashMap<>();
+    List<String> attendees = new ArrayList<>(request.getAttendees());
+    attendees.addAll(request.getOptionalAttendees());
+    for (String attendee : attendees) {
+      boolean[] minutes = new boolean[window.duration()];
+      WorkingHours hours = workingHours.get(attendee);
+      if (hours != null) {
+        for (int offset = 0; offset < minutes.length; offset++) {
+          int local = Math.floorMod(window.start() + offset + hours.getUtcOffset(),
+              TimeRange.MINUTES_PER_DAY);
+          minutes[offset] = hours.getStart() < hours.getEnd()
+              ? local < hours.getStart() || local >= hours.getEnd()
+              : local < hours.getStart() && local >= hours.getEnd();
+        }
+      }
+      busy.put(attendee, minutes);
+    }
+
+    for (Event event : events) {
+      Recurrence recurrence = event.getRecurrence();
+      int occurrences = recurrence == null ? 1 : recurrence.getOccurrences();
+      int period = recurrence == null ? 0 : recurrence.getPeriod();
+      for (String attendee : event.getAttendees()) {
+        boolean[] minutes = busy.get(attendee);
+        if (minutes == null) {
+          continue;
+        }
+        for (int k = 0; k < occurrences; k++) {
+          long start = event.getWhen().start() + (long) k * period;
+          long end = start + event.getWhen().duration();
+          for (long minute = Math.max(start, window.start());
+              minute < Math.min(end, window.end()); minute++) {
+            minutes[(int) (minute - window.start())] = true;
+          }
+        }
+      }
+    }
+    return busy;
+  }
+
+  /** Returns the runs of free minutes that last at least {@code duration} minutes. */
+  private static List<TimeRange> freeRuns(boolean[] busy, int windowStart, long duration) {
+    List<TimeRange> free = new ArrayList<>();
+    int runStart = 0;
+    for (int minute = 0; minute <= busy.length; minute++) {
+      if (minute == busy.length || busy[minute]) {
+        if (minute > runStart && minute - runStart >= duration) {
+          free.add(TimeRange.fromStartEnd(windowStart + runStart, windowStart + minute, false));
+        }
+        runStart = minute + 1;
+      }
+    }
+    return free;
+  }
+
+  /**
+   * Returns {@code count} events over the first week, each attended by one to three of
+   * {@code people} people. About one in five events repeats.
+   */
+  private static List<Event> randomEvents(Random random, int count, int people) {
+    List<Event> events = new ArrayList<>(count);
+    for (int k = 0; k < count; k++) {
+      int start = random.nextInt(TimeRange.MINUTES_PER_WEEK);
+      int duration = 1 + random.nextInt(MAX_EVENT_DURATION);
+
+      List<String> attendees = new ArrayList<>();
+      for (int attendee = random.nextInt(3); attendee >= 0; attendee--) {
+        attendees.add(person(random.nextInt(people)));
+      }
+
+      Recurrence recurrence = null;
+      int kind = random.nextInt(10);
+      if (kind == 0) {
+        recurrence = Recurrence.daily(1 + random.nextInt(10));
+      } else if (kind == 1) {
+        recurrence = new Recurrence(duration + random.nextInt(600), 1 + random.nextInt(20));
+      }
+      events.add(new Event("Event " + k, TimeRange.fromStartDuration(start, duration), attendees,
+          recurrence));
+    }
+    return events;
+  }
+
+  /**
+   * Returns a request for up to {@code attendees} random people, some of them optional, over a
+   * window of one day or several days.
+   */
+  private static MeetingRequest randomRequest(Random random, int people, int attendees) {
+    List<String> required = new ArrayList<>();
+    List<String> optional = new ArrayList<>();
+    for (int k = 0; k < attendees; k++) {
+      (random.nextBoolean() ? required : optional).add(person(random.nextInt(people)));
+    }
+
+    MeetingRequest request = new MeetingRequest(required, 1 + random.nextInt(180));
+    for (String attendee : optional) {
+      request.addOptionalAttendee(attendee);
+    }
+    switch (random.nextInt(3)) {
+      case 0:
+        // Leave the default first day.
+        break;
+      case 1:
+        request.setWindow(TimeRange.wholeDays(random.nextInt(7), 1));
+        break;
+      default:
+        request.setWindow(TimeRange.wholeDays(random.nextInt(5), 2 + random.nextInt(3)));
+        break;
+    }
+    return request;
+  }
+
+  /** Gives about half of {@code people} random working hours in a random time zone. */
+  private static Map<String, WorkingHours> randomWorkingHours(Random random, int people) {
+    Map<String, WorkingHours> workingHours = new HashMap<>();
+    for (int k = 0; k < people; k++) {
+      if (random.nextBoolean()) {
+        continue;
+      }
+      int start = random.nextInt(TimeRange.MINUTES_PER_DAY);
+      int end = 1 + random.nextInt(TimeRange.MINUTES_PER_DAY);
+      if (end == start) {
+        end = start + 1;
+      }
+      int utcOffset = random.nextInt(2 * 14 * 60 + 1) - 14 * 60;
+      workingHours.put(person(k), new WorkingHours(start, end, utcOffset));
+    }
+    return workingHours;
+  }
+
+  private static Map<String, WorkingHours> noWorkingHours() {
+    return Collections.emptyMap();
+  }
+
+  private static String person(int index) {
+    return "Differential Person " + index;
+  }
+
+  private static void report(String name, Map<String, Long> nanos) {
+    System.out.println("Query paths over " + name + ":");
+    for (Map.Entry<String, Long> path : nanos.entrySet()) {
+      System.out.printf("  %-20s %8.2f ms%n", path.getKey(), path.getValue() / 1e6);
+    }
+  }
+}
@@ -44,4 +44,16 @@ public final class MeetingRequestTest {
     int expected = 0;
     Assert.assertEquals(expected, actual);
   }
-}
\ No newline at end of file
+
+  @Test
+  public void attendeeBitsPickUpNamesInternedLater() {
+    String latecomer = "Person added after the request";
+    MeetingRequest request = new MeetingRequest(Arrays.asList(latecomer), DURATION_1_HOUR);
+    Assert.assertTrue(request.getAttendeeBits().isEmpty());
+
+    new Event("Event 1", TimeRange.fromStartDuration(0, 30), Arrays.asList(latecomer));
+
+    int id = AttendeeDictionary.global().find(latecomer);
+    Assert.assertTrue(request.getAttendeeBits().get(id));
+  }
+}
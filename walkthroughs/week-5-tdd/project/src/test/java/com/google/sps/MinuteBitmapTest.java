@@ -0,0 +1,108 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class MinuteBitmapTest {
+  @Test
+  public void emptyDayIsFree() {
+    MinuteBitmap bitmap = new MinuteBitmap();
+
+    Collection<TimeRange> actual = bitmap.freeRanges(30);
+    Collection<TimeRange> expected = Arrays.asList(TimeRange.WHOLE_DAY);
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void rangeWithinOneWord() {
+    MinuteBitmap bitmap = new MinuteBitmap();
+    bitmap.add(10, 20);
+
+    Assert.assertFalse(bitmap.isBusy(9));
+    Assert.assertTrue(bitmap.isBusy(10));
+    Assert.assertTrue(bitmap.isBusy(19));
+    Assert.assertFalse(bitmap.isBusy(20));
+  }
+
+  @Test
+  public void rangeAcrossWords() {
+    // Minutes 60 to 200 span the first four words of the bitmap.
+    MinuteBitmap bitmap = new MinuteBitmap();
+    bitmap.add(60, 200);
+
+    Collection<TimeRange> actual = bitmap.freeRanges(1);
+    Collection<TimeRange> expected = Arrays.asList(TimeRange.fromStartEnd(0, 60, false),
+        TimeRange.fromStartEnd(200, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void orCombinesAttendees() {
+    MinuteBitmap a = new MinuteBitmap();
+    a.add(0, 100);
+    MinuteBitmap b = new MinuteBitmap();
+    b.add(100, TimeRange.END_OF_DAY + 1);
+
+    a.or(b);
+
+    Assert.assertEquals(Arrays.asList(), a.freeRanges(1));
+  }
+
+  @Test
+  public void matchesSweepLine() {
+    Random random = new Random(42);
+    for (int round = 0; round < 200; round++) {
+      MinuteBitmap bitmap = new MinuteBitmap();
+      SweepLine sweep = new SweepLine(16);
+      int intervals = random.nextInt(20);
+      for (int k = 0; k < intervals; k++) {
+        int start = random.nextInt(TimeRange.WHOLE_DAY.duration());
+        int end = Math.min(start + random.nextInt(180), TimeRange.WHOLE_DAY.duration());
+        bitmap.add(start, end);
+        sweep.add(start, end);
+      }
+
+      int duration = 1 + random.nextInt(90);
+      Assert.assertEquals(sweep.freeRanges(duration), bitmap.freeRanges(duration));
+    }
+  }
+
+  @Test
+  public void findMeetingQueryBackendsAgree() {
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(480, 30), Arrays.asList("A")),
+        new Event("Event 2", TimeRange.fromStartDuration(540, 30), Arrays.asList("B")),
+        new Event("Event 3", TimeRange.fromStartDuration(510, 30), Arrays.asList("C")));
+    MeetingRequest request = new MeetingRequest(Arrays.asList("A", "B"), 30);
+    request.addOptionalAttendee("C");
+
+    Collection<TimeRange> expected = new FindMeetingQuery().query(events, request);
+    Collection<TimeRange> actual =
+        new FindMeetingQuery(FindMeetingQuery.Backend.MINUTE_BITMAP).query(events, request);
+
+    Assert.assertEquals(expected, actual);
+  }
+}
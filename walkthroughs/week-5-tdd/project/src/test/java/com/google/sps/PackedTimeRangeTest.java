@@ -0,0 +1,94 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class PackedTimeRangeTest {
+  @Test
+  public void packAndUnpack() {
+    long range = PackedTimeRange.fromStartDuration(100, 50);
+
+    Assert.assertEquals(100, PackedTimeRange.start(range));
+    Assert.assertEquals(50, PackedTimeRange.duration(range));
+    Assert.assertEquals(150, PackedTimeRange.end(range));
+    Assert.assertEquals(range, PackedTimeRange.fromStartEnd(100, 150));
+    Assert.assertEquals(TimeRange.fromStartDuration(100, 50), PackedTimeRange.toTimeRange(range));
+    Assert.assertEquals(range, PackedTimeRange.of(TimeRange.fromStartDuration(100, 50)));
+  }
+
+  @Test
+  public void sortsByStart() {
+    long[] ranges = {PackedTimeRange.fromStartDuration(300, 10),
+        PackedTimeRange.fromStartDuration(100, 500), PackedTimeRange.fromStartDuration(200, 1)};
+
+    Arrays.sort(ranges);
+
+    Assert.assertEquals(100, PackedTimeRange.start(ranges[0]));
+    Assert.assertEquals(200, PackedTimeRange.start(ranges[1]));
+    Assert.assertEquals(300, PackedTimeRange.start(ranges[2]));
+  }
+
+  @Test
+  public void matchesTimeRange() {
+    // Every pair of small ranges must give the same answers as TimeRange.
+    for (int startA = 0; startA < 6; startA++) {
+      for (int durationA = 0; durationA < 4; durationA++) {
+        for (int startB = 0; startB < 6; startB++) {
+          for (int durationB = 0; durationB < 4; durationB++) {
+            TimeRange a = TimeRange.fromStartDuration(startA, durationA);
+            TimeRange b = TimeRange.fromStartDuration(startB, durationB);
+            long packedA = PackedTimeRange.of(a);
+            long packedB = PackedTimeRange.of(b);
+
+            Assert.assertEquals(a.overlaps(b), PackedTimeRange.overlaps(packedA, packedB));
+            Assert.assertEquals(a.contains(b), PackedTimeRange.contains(packedA, packedB));
+            Assert.assertEquals(a.contains(startB), PackedTimeRange.contains(packedA, startB));
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void merge() {
+    long merged = PackedTimeRange.merge(
+        PackedTimeRange.fromStartEnd(100, 200), PackedTimeRange.fromStartEnd(150, 300));
+
+    Assert.assertEquals(PackedTimeRange.fromStartEnd(100, 300), merged);
+  }
+
+  @Test
+  public void listMergesOverlappingAndTouchingRanges() {
+    TimeRangeList list = new TimeRangeList(1);
+    list.add(400, 500);
+    list.add(100, 200);
+    list.add(200, 250);
+    list.add(120, 150);
+
+    list.mergeOverlapping();
+
+    Collection<TimeRange> expected = Arrays.asList(
+        TimeRange.fromStartEnd(100, 250, false), TimeRange.fromStartEnd(400, 500, false));
+    Assert.assertEquals(expected, list.toTimeRanges());
+  }
+}
@@ -0,0 +1,71 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class ParallelBusyMergeTest {
+  @Test
+  public void kWayMergeJoinsOverlappingBlocks() {
+    List<int[]> partials = Arrays.asList(
+        new int[] {0, 10, 50, 60},
+        new int[] {5, 20, 60, 70},
+        new int[] {},
+        new int[] {30, 40});
+
+    int[] actual = ParallelBusyMerge.kWayMerge(partials);
+
+    Assert.assertArrayEquals(new int[] {0, 20, 30, 40, 50, 70}, actual);
+  }
+
+  @Test
+  public void parallelQueryMatchesSequentialQuery() {
+    // Enough attendees that the work is split across several tasks.
+    Random random = new Random(7);
+    List<Event> events = new ArrayList<>();
+    List<String> attendees = new ArrayList<>();
+    for (int person = 0; person < 2000; person++) {
+      String attendee = "Person " + person;
+      attendees.add(attendee);
+      int start = random.nextInt(TimeRange.WHOLE_DAY.duration() - 30);
+      TimeRange when = TimeRange.fromStartDuration(start, 1 + random.nextInt(30));
+      events.add(new Event("Event " + person, when, Arrays.asList(attendee)));
+    }
+
+    MeetingRequest request = new MeetingRequest(attendees.subList(0, 1500), 1);
+    for (String attendee : attendees.subList(1500, 2000)) {
+      request.addOptionalAttendee(attendee);
+    }
+    AttendeeBusyIndex index = AttendeeBusyIndex.fromEvents(events);
+
+    Collection<TimeRange> expected =
+        new FindMeetingQuery(FindMeetingQuery.Backend.SWEEP_LINE, Integer.MAX_VALUE)
+            .query(index, request);
+    Collection<TimeRange> actual =
+        new FindMeetingQuery(FindMeetingQuery.Backend.SWEEP_LINE, 1).query(index, request);
+
+    Assert.assertEquals(expected, actual);
+  }
+}
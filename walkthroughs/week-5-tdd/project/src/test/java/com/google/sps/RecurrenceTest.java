@@ -0,0 +1,101 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class RecurrenceTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+
+  private static final int DURATION_60_MINUTES = 60;
+
+  @Test
+  public void onlyOccurrencesInWindowAreExpanded() {
+    // A daily stand-up repeated for a year. Asking about day 100 only touches that one day.
+    Event standUp = new Event("Stand-up", TimeRange.fromStartDuration(TIME_0900AM, 15),
+        Arrays.asList(PERSON_A), Recurrence.daily(365));
+    SweepLine busyTimes = new SweepLine(1);
+
+    TimeRange day = TimeRange.wholeDays(100, 1);
+    standUp.addOccurrences(day.start(), day.end(), busyTimes);
+
+    int start = TimeRange.getTimeInMinutes(100, 9, 0);
+    Assert.assertEquals(1, busyTimes.size());
+    Assert.assertArrayEquals(new int[] {start, start + 15}, busyTimes.mergedBusyIntervals());
+  }
+
+  @Test
+  public void noOccurrencesAfterTheLastOne() {
+    Event weekly = new Event("Weekly", TimeRange.fromStartDuration(TIME_0900AM, 15),
+        Arrays.asList(PERSON_A), Recurrence.weekly(2));
+    SweepLine busyTimes = new SweepLine(1);
+
+    TimeRange thirdWeek = TimeRange.wholeDays(14, 7);
+    weekly.addOccurrences(thirdWeek.start(), thirdWeek.end(), busyTimes);
+
+    Assert.assertEquals(0, busyTimes.size());
+  }
+
+  @Test
+  public void occurrenceOverlappingWindowStartIsIncluded() {
+    // Starts at 23:30 and runs past midnight into the next day.
+    Event lateShift = new Event("Late shift", TimeRange.fromStartDuration(23 * 60 + 30, 60),
+        Arrays.asList(PERSON_A), Recurrence.daily(3));
+    SweepLine busyTimes = new SweepLine(1);
+
+    TimeRange secondDay = TimeRange.wholeDays(1, 1);
+    lateShift.addOccurrences(secondDay.start(), secondDay.end(), busyTimes);
+
+    Assert.assertEquals(2, busyTimes.size());
+  }
+
+  @Test
+  public void queryOverAWeek() {
+    // Person A is busy from 9 to 10 every day. Person B is out on the whole third day.
+    Collection<Event> events = Arrays.asList(
+        new Event("Daily focus time", TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+            Arrays.asList(PERSON_A), Recurrence.daily(30)),
+        new Event("OOO", TimeRange.wholeDays(2, 1), Arrays.asList(PERSON_B)));
+
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_60_MINUTES);
+    request.setWindow(TimeRange.wholeDays(0, 4));
+
+    Collection<TimeRange> expected = Arrays.asList(
+        TimeRange.fromStartEnd(0, TIME_0900AM, false),
+        TimeRange.fromStartEnd(TIME_1000AM, TimeRange.getTimeInMinutes(1, 9, 0), false),
+        TimeRange.fromStartEnd(TimeRange.getTimeInMinutes(1, 10, 0),
+            TimeRange.getTimeInMinutes(2, 0, 0), false),
+        TimeRange.fromStartEnd(TimeRange.getTimeInMinutes(3, 0, 0),
+            TimeRange.getTimeInMinutes(3, 9, 0), false),
+        TimeRange.fromStartEnd(TimeRange.getTimeInMinutes(3, 10, 0),
+            TimeRange.getTimeInMinutes(4, 0, 0), false));
+
+    FindMeetingQuery query = new FindMeetingQuery();
+    Assert.assertEquals(expected, query.query(events, request));
+    Assert.assertEquals(expected, query.query(AttendeeBusyIndex.fromEvents(events), request));
+  }
+}
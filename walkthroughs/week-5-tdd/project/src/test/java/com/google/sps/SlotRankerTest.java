@@ -0,0 +1,185 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class SlotRankerTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_1200PM = TimeRange.getTimeInMinutes(12, 0);
+  private static final int TIME_1300PM = TimeRange.getTimeInMinutes(13, 0);
+  private static final int TIME_1400PM = TimeRange.getTimeInMinutes(14, 0);
+  private static final int TIME_2300PM = TimeRange.getTimeInMinutes(23, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+
+  private final FindMeetingQuery query = new FindMeetingQuery();
+
+  @Test
+  public void returnsAtMostKSuggestions() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    AttendeeBusyIndex index = AttendeeBusyIndex.fromEvents(Arrays.<Event>asList());
+
+    List<TimeRange> actual = query.queryRanked(index, request, new SlotRanker(3));
+
+    Assert.assertEquals(3, actual.size());
+    for (TimeRange suggestion : actual) {
+      Assert.assertEquals(DURATION_30_MINUTES, suggestion.duration());
+    }
+  }
+
+  @Test
+  public void preferredWindowWins() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    AttendeeBusyIndex index = AttendeeBusyIndex.fromEvents(Arrays.<Event>asList());
+    SlotRanker ranker = new SlotRanker(1);
+    ranker.addPreferredWindow(TimeRange.fromStartEnd(TIME_1300PM, TIME_1400PM, false));
+
+    List<TimeRange> actual = query.queryRanked(index, request, ranker);
+
+    Assert.assertEquals(1, actual.size());
+    Assert.assertTrue(
+        TimeRange.fromStartEnd(TIME_1300PM, TIME_1400PM, false).contains(actual.get(0)));
+  }
+
+  @Test
+  public void optionalAttendeesOutweighPreference() {
+    // B is only free from 9 to 10, outside of the preferred window.
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(0, TIME_0900AM, false),
+            Arrays.asList(PERSON_B)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true),
+            Arrays.asList(PERSON_B)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+    SlotRanker ranker = new SlotRanker(1);
+    ranker.addPreferredWindow(TimeRange.fromStartEnd(TIME_1200PM, TIME_1400PM, false));
+
+    List<TimeRange> actual =
+        query.queryRanked(AttendeeBusyIndex.fromEvents(events), request, ranker);
+
+    Assert.assertEquals(1, actual.size());
+    Assert.assertTrue(
+        TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false).contains(actual.get(0)));
+  }
+
+  @Test
+  public void suggestionsAvoidMeetingEdges() {
+    // A is busy everywhere except 9:00 to 10:00. The best half hour leaves equal room on both
+    // sides.
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(0, TIME_0900AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true),
+            Arrays.asList(PERSON_A)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    List<TimeRange> actual =
+        query.queryRanked(AttendeeBusyIndex.fromEvents(events), request, new SlotRanker(5));
+
+    Assert.assertEquals(TimeRange.fromStartDuration(TIME_0900AM + 15, DURATION_30_MINUTES),
+        actual.get(0));
+    Assert.assertEquals(3, actual.size());
+  }
+
+  @Test
+  public void windowEdgesAreNotMeetings() {
+    // A is only free in the last hour of the day. Nothing follows the meeting, so the best half
+    // hour is the one furthest from A's other meeting.
+    Collection<Event> events = Arrays.asList(new Event("Event 1",
+        TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_2300PM, false),
+        Arrays.asList(PERSON_A)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    List<TimeRange> actual =
+        query.queryRanked(AttendeeBusyIndex.fromEvents(events), request, new SlotRanker(1));
+
+    Assert.assertEquals(
+        Arrays.asList(TimeRange.fromStartDuration(TIME_2300PM + 30, DURATION_30_MINUTES)),
+        actual);
+  }
+
+  @Test
+  public void earlierTimeWinsTies() {
+    // Every half hour of an empty day scores the same.
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    AttendeeBusyIndex index = AttendeeBusyIndex.fromEvents(Arrays.<Event>asList());
+
+    List<TimeRange> actual = query.queryRanked(index, request, new SlotRanker(2));
+
+    Assert.assertEquals(Arrays.asList(TimeRange.fromStartDuration(0, DURATION_30_MINUTES),
+        TimeRange.fromStartDuration(15, DURATION_30_MINUTES)), actual);
+  }
+
+  @Test
+  public void pruningMatchesFullRanking() {
+    // A ranker that can hold every candidate never prunes, so its first k suggestions are the
+    // answer the bounded search has to reproduce.
+    for (long seed = 0; seed < 2000; seed++) {
+      Random random = new Random(seed);
+      List<Event> events = new ArrayList<>();
+      for (int k = random.nextInt(8); k > 0; k--) {
+        int start = random.nextInt(TimeRange.END_OF_DAY);
+        int duration = 1 + random.nextInt(180);
+        String attendee = random.nextBoolean() ? PERSON_A : PERSON_B;
+        events.add(new Event("Event " + k, TimeRange.fromStartDuration(start, duration),
+            Arrays.asList(attendee)));
+      }
+      MeetingRequest request =
+          new MeetingRequest(Arrays.asList(PERSON_A), 15 + random.nextInt(60));
+      request.addOptionalAttendee(PERSON_B);
+      int preferredStart = random.nextInt(TimeRange.END_OF_DAY - 120);
+      TimeRange preferred = TimeRange.fromStartDuration(preferredStart, 120);
+      int k = 1 + random.nextInt(4);
+
+      SlotRanker bounded = new SlotRanker(k);
+      bounded.addPreferredWindow(preferred);
+      SlotRanker unbounded = new SlotRanker(TimeRange.END_OF_DAY);
+      unbounded.addPreferredWindow(preferred);
+      AttendeeBusyIndex index = AttendeeBusyIndex.fromEvents(events);
+
+      List<TimeRange> expected = query.queryRanked(index, request, unbounded);
+      expected = expected.subList(0, Math.min(k, expected.size()));
+      Assert.assertEquals(
+          "seed " + seed, expected, query.queryRanked(index, request, bounded));
+    }
+  }
+
+  @Test
+  public void noSuggestionsWhenNothingFits() {
+    Collection<Event> events =
+        Arrays.asList(new Event("Event 1", TimeRange.WHOLE_DAY, Arrays.asList(PERSON_A)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    List<TimeRange> actual =
+        query.queryRanked(AttendeeBusyIndex.fromEvents(events), request, new SlotRanker(5));
+
+    Assert.assertEquals(Arrays.asList(), actual);
+  }
+}
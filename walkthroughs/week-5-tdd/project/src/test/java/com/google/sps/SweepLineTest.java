@@ -0,0 +1,86 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class SweepLineTest {
+  @Test
+  public void emptyDayIsFree() {
+    SweepLine sweep = new SweepLine(0);
+
+    Collection<TimeRange> actual = sweep.freeRanges(30);
+    Collection<TimeRange> expected = Arrays.asList(TimeRange.WHOLE_DAY);
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void backToBackIntervalsLeaveNoGap() {
+    // Busy : |--|--|
+    // Free :       |-----|
+    SweepLine sweep = new SweepLine(2);
+    sweep.add(0, 60);
+    sweep.add(60, 120);
+
+    Collection<TimeRange> actual = sweep.freeRanges(1);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(120, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void unsortedAndNestedIntervals() {
+    // Intervals are added out of order and one is nested inside another.
+    SweepLine sweep = new SweepLine(1);
+    sweep.add(600, 700);
+    sweep.add(100, 400);
+    sweep.add(200, 300);
+
+    Collection<TimeRange> actual = sweep.freeRanges(30);
+    Collection<TimeRange> expected = Arrays.asList(TimeRange.fromStartEnd(0, 100, false),
+        TimeRange.fromStartEnd(400, 600, false),
+        TimeRange.fromStartEnd(700, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+    Assert.assertEquals(3, sweep.size());
+  }
+
+  @Test
+  public void shortGapsAreDropped() {
+    SweepLine sweep = new SweepLine(2);
+    sweep.add(0, 100);
+    sweep.add(120, TimeRange.END_OF_DAY + 1);
+
+    Assert.assertEquals(Arrays.asList(), sweep.freeRanges(30));
+  }
+
+  @Test
+  public void emptyIntervalsAreIgnored() {
+    SweepLine sweep = new SweepLine(1);
+    sweep.add(500, 500);
+
+    Assert.assertEquals(0, sweep.size());
+    Assert.assertEquals(Arrays.asList(TimeRange.WHOLE_DAY), sweep.freeRanges(30));
+  }
+}
@@ -0,0 +1,129 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class WorkingHoursTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_1100AM = TimeRange.getTimeInMinutes(11, 0);
+  private static final int TIME_1400PM = TimeRange.getTimeInMinutes(14, 0);
+  private static final int TIME_1700PM = TimeRange.getTimeInMinutes(17, 0);
+
+  private static final int DURATION_60_MINUTES = 60;
+
+  @Test
+  public void blocksTimeOutsideOfWorkingHours() {
+    WorkingHours hours = new WorkingHours(TIME_0900AM, TIME_1700PM, 0);
+    SweepLine busyTimes = new SweepLine(2);
+
+    hours.addBlockedTimes(TimeRange.WHOLE_DAY, busyTimes);
+
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TIME_0900AM, TIME_1700PM, false));
+    Assert.assertEquals(expected, busyTimes.freeRanges(1));
+  }
+
+  @Test
+  public void offsetShiftsWorkingHoursToUtc() {
+    // 9:00 to 17:00 at UTC-5 is 14:00 to 22:00 UTC.
+    WorkingHours hours = new WorkingHours(TIME_0900AM, TIME_1700PM, -5 * 60);
+    SweepLine busyTimes = new SweepLine(2);
+
+    hours.addBlockedTimes(TimeRange.WHOLE_DAY, busyTimes);
+
+    Collection<TimeRange> expected = Arrays.asList(
+        TimeRange.fromStartEnd(TIME_1400PM, TimeRange.getTimeInMinutes(22, 0), false));
+    Assert.assertEquals(expected, busyTimes.freeRanges(1));
+  }
+
+  @Test
+  public void workingHoursPastMidnight() {
+    // 22:00 to 6:00 local time, in UTC.
+    WorkingHours hours =
+        new WorkingHours(TimeRange.getTimeInMinutes(22, 0), TimeRange.getTimeInMinutes(6, 0), 0);
+    SweepLine busyTimes = new SweepLine(2);
+
+    hours.addBlockedTimes(TimeRange.WHOLE_DAY, busyTimes);
+
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(0, TimeRange.getTimeInMinutes(6, 0), false),
+            TimeRange.fromStartEnd(TimeRange.getTimeInMinutes(22, 0), TimeRange.END_OF_DAY, true));
+    Assert.assertEquals(expected, busyTimes.freeRanges(1));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsEmptyWorkingHours() {
+    new WorkingHours(TIME_0900AM, TIME_0900AM, 0);
+  }
+
+  @Test
+  public void queryRespectsEveryonesWorkingHours() {
+    // A works 9 to 17 UTC. B works 9 to 17 at UTC+1, which is 8 to 16 UTC. A has a meeting
+    // from 10 to 11.
+    Collection<Event> events = Arrays.asList(new Event("Event 1",
+        TimeRange.fromStartEnd(TIME_1000AM, TIME_1100AM, false), Arrays.asList(PERSON_A)));
+    Map<String, WorkingHours> workingHours = new HashMap<>();
+    workingHours.put(PERSON_A, new WorkingHours(TIME_0900AM, TIME_1700PM, 0));
+    workingHours.put(PERSON_B, new WorkingHours(TIME_0900AM, TIME_1700PM, 60));
+
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_60_MINUTES);
+
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+            TimeRange.fromStartEnd(TIME_1100AM, TimeRange.getTimeInMinutes(16, 0), false));
+
+    FindMeetingQuery query = new FindMeetingQuery();
+    Assert.assertEquals(
+        expected, query.query(AttendeeBusyIndex.fromEvents(events, workingHours), request));
+
+    CalendarStore store = new CalendarStore(10);
+    store.addEvent(events.iterator().next());
+    store.setWorkingHours(PERSON_A, workingHours.get(PERSON_A));
+    store.setWorkingHours(PERSON_B, workingHours.get(PERSON_B));
+    Assert.assertEquals(expected, store.query(request));
+  }
+
+  @Test
+  public void workingHoursRepeatOverMultiDayWindow() {
+    Map<String, WorkingHours> workingHours = new HashMap<>();
+    workingHours.put(PERSON_A, new WorkingHours(TIME_0900AM, TIME_1700PM, 0));
+    AttendeeBusyIndex index =
+        AttendeeBusyIndex.fromEvents(Arrays.<Event>asList(), workingHours);
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_60_MINUTES);
+    request.setWindow(TimeRange.wholeDays(0, 2));
+
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TIME_0900AM, TIME_1700PM, false),
+            TimeRange.fromStartEnd(TimeRange.getTimeInMinutes(1, 9, 0),
+                TimeRange.getTimeInMinutes(1, 17, 0), false));
+    Assert.assertEquals(expected, new FindMeetingQuery().query(index, request));
+  }
+}